@@ -0,0 +1,148 @@
+package plotter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.scene.chart.ValueAxis;
+
+/**
+ * links the x-axes of several charts to one shared viewport
+ * zoom and pan requests of any member are collected and applied to all members once per pulse,
+ * so all charts are laid out in the same pulse and no member ever listens to another one
+ */
+public class AxisGroup {
+
+	private final List <InteractiveLineChart> members = new ArrayList <> ();
+	private final DoubleProperty crosshair = new SimpleDoubleProperty(Double.NaN);
+	private final BooleanProperty autoScaleY = new SimpleBooleanProperty(false);
+	private double lo = Double.NaN, hi = Double.NaN;		//shared viewport of the x-axis
+	private boolean isPending;
+
+	private final AnimationTimer pulse = new AnimationTimer() {
+
+		@Override
+		public void handle(long now) {
+			apply();
+		}
+	};
+
+	public AxisGroup() {
+		autoScaleY.addListener(inv -> schedule());
+	}
+
+	/**
+	 * add chart to this group, the chart takes on the current viewport of the group
+	 * @param chart
+	 */
+	public void add(InteractiveLineChart chart) {
+		if (members.contains(chart)) return;
+		if (chart.getAxisGroup() != null) chart.getAxisGroup().remove(chart);
+		members.add(chart);
+		chart.setAxisGroup(this);
+		if (members.size() == 1) {
+			lo = chart.getXAxis().getLowerBound();
+			hi = chart.getXAxis().getUpperBound();
+		}
+		schedule();
+	}
+
+	public void remove(InteractiveLineChart chart) {
+		if (members.remove(chart)) chart.setAxisGroup(null);
+	}
+
+	public List <InteractiveLineChart> getMembers() {
+		return new ArrayList <> (members);
+	}
+
+	/**
+	 * set the shared viewport of the x-axis, applied with the next pulse
+	 * @param lo lower bound
+	 * @param hi upper bound
+	 */
+	public void setRange(double lo, double hi) {
+		if (hi > lo) {
+			this.lo = lo;
+			this.hi = hi;
+			schedule();
+		}
+	}
+
+	public double getLowerBound() {
+		return lo;
+	}
+
+	public double getUpperBound() {
+		return hi;
+	}
+
+	/**
+	 * zoom the shared viewport, several zoom requests within one pulse accumulate
+	 * @param fraction position of zoom center relative to axis length
+	 * @param f zoom factor
+	 */
+	public void zoom(double fraction, double f) {
+		double mid = lo + (hi - lo) * fraction;
+		setRange(mid - (mid - lo) * f, mid + (hi - mid) * f);
+	}
+
+	/**
+	 * set viewport of the x-axis to the data of all members
+	 */
+	public void resetRange() {
+		double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+		for (InteractiveLineChart chart : members) {
+			double[] ext = chart.getExtentX();
+			min = Math.min(min, ext[0]);
+			max = Math.max(max, ext[1]);
+		}
+		if (max > min) {
+			double margin = (max - min) * CustomNumberAxis.MARGIN;
+			setRange(min - margin, max + margin);
+		}
+	}
+
+	/**
+	 * position of the crosshair in units of the x-axis, NaN when not shown
+	 * @return
+	 */
+	public DoubleProperty crosshairProperty() {
+		return crosshair;
+	}
+
+	/**
+	 * when set, each member scales its y-axis to the data visible in the shared x-viewport
+	 * @return
+	 */
+	public BooleanProperty autoScaleYProperty() {
+		return autoScaleY;
+	}
+
+	public void setAutoScaleY(boolean autoScaleY) {
+		this.autoScaleY.set(autoScaleY);
+	}
+
+	private void schedule() {
+		if (isPending == false) {
+			isPending = true;
+			pulse.start();
+		}
+	}
+
+	private void apply() {
+		pulse.stop();
+		isPending = false;
+		if (lo < hi == false) return;
+		for (InteractiveLineChart chart : members) {
+			ValueAxis <Number> axis = chart.getXAxis();
+			axis.setAutoRanging(false);
+			axis.setLowerBound(lo);
+			axis.setUpperBound(hi);
+			if (autoScaleY.get()) chart.scaleYToRange(lo, hi);
+		}
+	}
+}
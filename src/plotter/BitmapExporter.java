@@ -0,0 +1,67 @@
+package plotter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.IntBuffer;
+
+import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.image.WritablePixelFormat;
+import javafx.scene.transform.Transform;
+
+/**
+ * renders the chart to a png image of any size in tiles,
+ * tiles of one horizontal strip are collected and handed to the png writer, then the next strip is rendered
+ * memory is bounded by the size of one strip, which is limited to MAX_STRIP_PIXELS
+ */
+class BitmapExporter {
+
+	private static final int TILE_SIZE = 2048;					//stay well within texture limits
+	private static final int MAX_STRIP_PIXELS = 1 << 23;
+
+	private final InteractiveLineChart chart;
+	private final OutputStream out;
+	private final double scale;
+
+	BitmapExporter(InteractiveLineChart chart, OutputStream out, double scale) {
+		this.chart = chart;
+		this.out = out;
+		this.scale = scale;
+	}
+
+	void write() throws IOException {
+		int width = (int) Math.ceil(chart.getWidth() * scale), height = (int) Math.ceil(chart.getHeight() * scale);
+		int tileWidth = Math.min(width, TILE_SIZE);
+		int stripHeight = Math.max(1, Math.min(TILE_SIZE, Math.min(height, MAX_STRIP_PIXELS / width)));
+		int[] strip = new int[width * stripHeight];
+		Point2D parentOrigin = chart.localToParent(0, 0);
+		Point2D plotOrigin = chart.sceneToLocal(chart.getPlotArea().localToScene(0, 0));
+		SnapshotParameters params = new SnapshotParameters();
+		params.setTransform(Transform.scale(scale, scale));
+		WritablePixelFormat <IntBuffer> format = PixelFormat.getIntArgbInstance();
+		PngTileWriter png = new PngTileWriter(out, width, height);
+		WritableImage image = null;
+
+		try {
+			for (int y = 0; y < height; y += stripHeight) {
+				int rows = Math.min(stripHeight, height - y);
+				for (int x = 0; x < width; x += tileWidth) {
+					int cols = Math.min(tileWidth, width - x);
+					chart.drawExportTile(new Rectangle2D(x / scale - plotOrigin.getX(), y / scale - plotOrigin.getY(), cols / scale, rows / scale), scale);
+					params.setViewport(new Rectangle2D(parentOrigin.getX() * scale + x, parentOrigin.getY() * scale + y, cols, rows));
+					boolean isReusable = image != null && image.getWidth() == cols && image.getHeight() == rows;
+					image = chart.snapshot(params, isReusable ? image : null);
+					image.getPixelReader().getPixels(0, 0, cols, rows, format, strip, x, width);
+				}
+				png.writeRows(strip, rows);
+			}
+			png.finish();
+
+		} finally {
+			chart.drawExportTile(null, 1.0);
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package plotter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.chart.XYChart.Series;
+
+/**
+ * access to a DataPlotter from any thread
+ * commands are put into a lock free queue and applied in order on the fx thread, all commands waiting are applied
+ * together at the next pulse, so the fx event queue receives at most one entry per batch instead of one per command
+ * results are delivered through futures, which are completed on the fx thread
+ */
+public class ConcurrentPlotter {
+
+	private final DataPlotter plotter;
+	private final ConcurrentLinkedQueue <Runnable> queue = new ConcurrentLinkedQueue <> ();
+	private final AtomicBoolean isScheduled = new AtomicBoolean(false);
+
+	private final AnimationTimer pulse = new AnimationTimer() {
+
+		@Override
+		public void handle(long now) {
+			stop();
+			isScheduled.set(false);
+			Runnable command;
+			while ((command = queue.poll()) != null) command.run();
+		}
+	};
+
+	public ConcurrentPlotter(DataPlotter plotter) {
+		this.plotter = plotter;
+	}
+
+	/**
+	 * apply any command to the plotter on the fx thread
+	 * @param <T> type of result
+	 * @param command
+	 * @return future to be completed with the result of the command or with the exception or error thrown by it
+	 */
+	public <T> CompletableFuture <T> submit(Function <DataPlotter, T> command) {
+		CompletableFuture <T> future = new CompletableFuture <> ();
+		queue.add(() -> {
+			try {
+				future.complete(command.apply(plotter));
+
+			} catch (Throwable e) {				//errors too, so the remaining commands of the batch still run
+				future.completeExceptionally(e);
+			}
+		});
+		if (isScheduled.compareAndSet(false, true)) Platform.runLater(pulse::start);
+		return future;
+	}
+
+	/**
+	 * create a new Builder, it can be set up on any thread and then plotted via {@link #plot(DataPlotter.Builder)}
+	 * @return Builder object
+	 */
+	public DataPlotter.Builder builder() {
+		return plotter.builder();
+	}
+
+	public CompletableFuture <Series <Number, Number>> plot(DataPlotter.Builder builder) {
+		return submit(p -> builder.plot());
+	}
+
+	public CompletableFuture <Series <Number, Number>> plot(Consumer <DataPlotter.Builder> setup) {
+		DataPlotter.Builder builder = plotter.builder();
+		setup.accept(builder);
+		return plot(builder);
+	}
+
+	public CompletableFuture <Series <Number, Number>> addPlot(double[] x, double[] y) {
+		return submit(p -> p.addPlot(x, y));
+	}
+
+	public CompletableFuture <Series <Number, Number>> addPlot(double[] y) {
+		return submit(p -> p.addPlot(y));
+	}
+
+	public CompletableFuture <Boolean> remove(Series <Number, Number> series) {
+		return submit(p -> p.remove(series));
+	}
+
+	public CompletableFuture <Boolean> remove(String seriesName) {
+		return submit(p -> p.remove(seriesName));
+	}
+
+	public CompletableFuture <Void> append(Series <Number, Number> series, double[] x, double[] y) {
+		double[] xCopy = x.clone(), yCopy = y.clone();		//caller may reuse its arrays
+		return submit(p -> {
+			p.append(series, xCopy, yCopy);
+			return null;
+		});
+	}
+
+	public CompletableFuture <Void> clearPlots() {
+		return submit(p -> {
+			p.clearPlots();
+			return null;
+		});
+	}
+
+	public CompletableFuture <Void> setAxesEqual() {
+		return submit(p -> {
+			p.setAxesEqual();
+			return null;
+		});
+	}
+
+	public DataPlotter getPlotter() {
+		return plotter;
+	}
+}
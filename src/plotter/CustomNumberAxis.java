@@ -10,12 +10,13 @@ import javafx.util.StringConverter;
 public class CustomNumberAxis extends ValueAxis <Number> {
 
 	private static final List <Integer> DELTA_LIST = Arrays.asList(1, 2, 5);	//possible base delta values between major ticks
-	private static final double MARGIN = 0.01;		//distance between plot area and edge of graph
+	static final double MARGIN = 0.01;				//distance between plot area and edge of graph
 	private static final double TICK_GAP = 10.0;	//minimal gap between tick labels
 	private TreeMap <Number, String> majorTicksMap = new TreeMap <> ();
 	private double majorTickDeltaPixel = 50.0;
 	private double majorTickDelta;
 	private TickMarkLabelSizeCalculator labelSizeCalculator = new TickMarkLabelSizeCalculator();
+	private boolean isMinorTicksSuppressed;
 	
 	{
 		scaleProperty().addListener(inv -> Platform.runLater(() -> requestAxisLayout()));
@@ -92,6 +93,7 @@ public class CustomNumberAxis extends ValueAxis <Number> {
 	protected List <Number> calculateMinorTickMarks() {
 //		System.out.println("calculateMinorTickMarks");
 		List <Number> minorTicks = new ArrayList <> ();
+		if (isMinorTicksSuppressed) return minorTicks;
 		double deltaTick = majorTickDelta / getMinorTickCount();
 		
 		majorTicksMap.navigableKeySet().forEach(major -> {
@@ -100,6 +102,17 @@ public class CustomNumberAxis extends ValueAxis <Number> {
 		return minorTicks;
 	}
 
+	/**
+	 * leave out minor ticks for the time being, used while the chart is zoomed or panned
+	 * @param isSuppressed
+	 */
+	void setMinorTicksSuppressed(boolean isSuppressed) {
+		if (isMinorTicksSuppressed != isSuppressed) {
+			isMinorTicksSuppressed = isSuppressed;
+			requestAxisLayout();
+		}
+	}
+	
 	@Override
 	protected String getTickMarkLabel(Number value) {
 		StringConverter <Number> formatter = getTickLabelFormatter();
@@ -162,4 +175,4 @@ public class CustomNumberAxis extends ValueAxis <Number> {
 //			System.out.println("input = " + tickDelta + ", baseDelta = " + baseDelta + ", delta = " + delta);
 		}
 	}
-}
\ No newline at end of file
+}
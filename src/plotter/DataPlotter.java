@@ -1,27 +1,34 @@
 package plotter;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.DoubleConsumer;
 import java.util.function.DoubleUnaryOperator;
+import java.util.function.Supplier;
 import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
-import javax.imageio.ImageIO;
-
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.DoubleProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
-import javafx.embed.swing.SwingFXUtils;
+import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
@@ -33,7 +40,7 @@ import javafx.scene.chart.XYChart.Data;
 import javafx.scene.chart.XYChart.Series;
 import javafx.scene.control.*;
 import javafx.scene.control.Alert.AlertType;
-import javafx.scene.image.Image;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.stage.FileChooser;
@@ -47,18 +54,30 @@ import javafx.util.converter.DoubleStringConverter;
 public class DataPlotter {
 
 //	private final ValueAxis <Number> axisX = new NumberAxis();
-	private final ValueAxis <Number> axisX = new CustomNumberAxis();
+	private final ValueAxis <Number> axisX;
 //	private final ValueAxis <Number> axisY = new NumberAxis();
 	private final ValueAxis <Number> axisY = new CustomNumberAxis();
-	private final InteractiveLineChart chart = new InteractiveLineChart(axisX, axisY);
+	private final InteractiveLineChart chart;
 //	private final LineChart <Number, Number> chart = new InteractiveLineChart(axisX, axisY);
 	private final CheckBox cbSymbols = new CheckBox("symbols");
-	private final BoundsEditor boundsEditor;
+	private static final double SCREEN_DPI = 96.0;
+	private BoundsEditor boundsEditor;				//created on first use
 	private final VBox vbox;
 	private Stage stage;
 	private int plotCount;
+	private final Map <Series <Number, Number>, SeriesOwner> ownerMap = new HashMap <> ();
 	
 	public DataPlotter() {
+		this(new CustomNumberAxis());
+	}
+	
+	/**
+	 * plotter with another x axis, e.g. a {@link TimeAxis} for timestamps
+	 * @param axisX
+	 */
+	public DataPlotter(ValueAxis <Number> axisX) {
+		this.axisX = axisX;
+		this.chart = new InteractiveLineChart(axisX, axisY);
 		CheckBox cbGrid = new CheckBox("grid");
 		CheckBox cbAxesAuto = new CheckBox("auto");
 		Stream.of(cbSymbols, cbGrid, cbAxesAuto).forEach(cb -> cb.setSelected(true));
@@ -69,19 +88,19 @@ public class DataPlotter {
 		axisY.autoRangingProperty().bindBidirectional(cbAxesAuto.selectedProperty());
 		
 		Button btnAxesEqual = new Button("equ");
-		btnAxesEqual.setTooltip(new Tooltip("set equal scale to both axes"));
+		installLazyTooltip(btnAxesEqual, () -> new Tooltip("set equal scale to both axes"));
 		btnAxesEqual.setOnAction(event -> chart.setAxesEqual());
 		
 		Button btnAxesBounds = new Button("bds");
-		btnAxesBounds.setTooltip(new Tooltip("manually set axes limits"));
-		boundsEditor = new BoundsEditor();
+		installLazyTooltip(btnAxesBounds, () -> new Tooltip("manually set axes limits"));
 		btnAxesBounds.setOnAction(event -> {
+			if (boundsEditor == null) boundsEditor = new BoundsEditor();
 			boundsEditor.editBounds();
 		});
 		
 		String csvInfo = "save data to CSV file";
 		Button btnCsvSave = new Button("csv");
-		btnCsvSave.setTooltip(new Tooltip(csvInfo));
+		installLazyTooltip(btnCsvSave, () -> new Tooltip(csvInfo));
 		btnCsvSave.setOnAction(event -> {
 			FileChooser fc = new FileChooser();
 			fc.getExtensionFilters().add(new ExtensionFilter("csv file", "*.csv"));
@@ -92,7 +111,7 @@ public class DataPlotter {
 		
 		String snapshotInfo = "save screenshot to bitmap file";
 		Button snapshot = new Button("pic");
-		snapshot.setTooltip(new Tooltip(snapshotInfo));
+		installLazyTooltip(snapshot, () -> new Tooltip(snapshotInfo));
 		snapshot.setOnAction(event -> {
 			FileChooser fc = new FileChooser();
 			fc.getExtensionFilters().add(new ExtensionFilter("png image", "*.png"));
@@ -101,6 +120,17 @@ public class DataPlotter {
 			if (file != null) saveBitmap(file);
 		});
 		
+		String svgInfo = "save chart to vector graphics file";
+		Button btnSvg = new Button("svg");
+		installLazyTooltip(btnSvg, () -> new Tooltip(svgInfo));
+		btnSvg.setOnAction(event -> {
+			FileChooser fc = new FileChooser();
+			fc.getExtensionFilters().add(new ExtensionFilter("svg image", "*.svg"));
+			fc.setTitle(svgInfo);
+			File file = fc.showSaveDialog(chart.getScene().getWindow()); 
+			if (file != null) saveSvg(file);
+		});
+		
 		Callback <ListView <Side>, ListCell <Side>> callback = lv -> {
 			return new ListCell <Side> () {
 				
@@ -120,10 +150,14 @@ public class DataPlotter {
 		CheckBox legendVisible = new CheckBox("legend");
 		legendVisible.selectedProperty().bindBidirectional(chart.legendVisibleProperty());
 		
+		CheckBox cbReadout = new CheckBox("values");
+		installLazyTooltip(cbReadout, () -> new Tooltip("show values at mouse position"));
+		cbReadout.selectedProperty().bindBidirectional(chart.readoutVisibleProperty());
+		
 		HBox hbox = new HBox(10, 
-				cbSymbols, cbGrid, cbAxesAuto, legendVisible, legendSide, 
+				cbSymbols, cbGrid, cbAxesAuto, legendVisible, legendSide, cbReadout, 
 				new Separator(Orientation.VERTICAL), 
-				btnAxesEqual, btnAxesBounds, btnCsvSave, snapshot);
+				btnAxesEqual, btnAxesBounds, btnCsvSave, snapshot, btnSvg);
 		hbox.setAlignment(Pos.CENTER_LEFT);
 		hbox.setPadding(new Insets(5, 10, 5, 10));
 		hbox.setMinWidth(500);
@@ -131,7 +165,18 @@ public class DataPlotter {
 		vbox.setMinHeight(400);
 		VBox.setVgrow(chart, Priority.ALWAYS);
 		
-		vbox.getStylesheets().add(getClass().getResource("../res/DataPlotter.css").toExternalForm());
+		vbox.getStylesheets().add(Stylesheet.URL);
+		
+		//release what series created by a Builder hold on the plotter, however they leave the chart
+		chart.getData().addListener((ListChangeListener <Series <Number, Number>>) change -> {
+			while (change.next()) {
+				for (Series <Number, Number> series : change.getRemoved()) {
+					if (chart.getData().contains(series)) continue;
+					SeriesOwner owner = ownerMap.remove(series);
+					if (owner != null) owner.release();
+				}
+			}
+		});
 	}
 	
 	public boolean saveTable(File file) {
@@ -141,9 +186,9 @@ public class DataPlotter {
 			bw.newLine();
 			for (int i = 0; i < chart.getData().size(); i++) {
 				Series <Number, Number> series = chart.getData().get(i);
-				for (int k = 0; k < series.getData().size(); k++) {
-					Data <Number, Number> data = series.getData().get(k);
-					bw.write(String.format("%s;%d;%f;%f", series.getName(), k, data.getXValue(), data.getYValue()));
+				SeriesBuffer buffer = chart.getBuffer(series).within(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0);
+				for (int k = 0; k < buffer.size; k++) {
+					bw.write(String.format("%s;%d;%f;%f", series.getName(), k, buffer.x[k], buffer.y[k]));
 					bw.newLine();
 				}
 			}
@@ -155,11 +200,81 @@ public class DataPlotter {
 		return ok;
 	}
 	
+	/**
+	 * read a table in the format written by {@link #saveTable(File)} and plot one series for each name
+	 * @param path
+	 * @return created series
+	 */
+	public List <Series <Number, Number>> loadTable(Path path) {
+		return loadTable(path, ';', Locale.getDefault(), null);
+	}
+	
+	/**
+	 * read a table with columns name, index, x, y and plot one series for each name,
+	 * the file is parsed in parallel, the series are plotted in order of first appearance of their name
+	 * @param path
+	 * @param delimiter separator of columns
+	 * @param locale defines decimal separator
+	 * @param progress receives the fraction of the file parsed, called from worker threads, may be null
+	 * @return created series, empty when the file can not be read or parsed, the error is shown in an alert
+	 */
+	public List <Series <Number, Number>> loadTable(Path path, char delimiter, Locale locale, DoubleConsumer progress) {
+		List <Series <Number, Number>> list = new ArrayList <> ();
+		Map <String, double[][]> table;
+		try {
+			table = new TableParser(delimiter, locale).parse(path, progress);
+			
+		} catch (IOException | RuntimeException e) {			//malformed content is reported as RuntimeException
+			fileAlert(path.toFile(), e);
+			return list;
+		}
+		table.forEach((name, xy) -> list.add(builder().setName(name).setX(xy[0]).setY(xy[1]).plot()));
+		return list;
+	}
+	
 	public boolean saveBitmap(File file) {
+		return saveBitmap(file, SCREEN_DPI);
+	}
+	
+	/**
+	 * save chart as png image, the chart is rendered and written in tiles, 
+	 * so the size of the image is not limited by memory or texture size
+	 * @param file
+	 * @param dpi resolution of image, 96 dpi gives the size shown on screen
+	 * @return true when successful
+	 */
+	public boolean saveBitmap(File file, double dpi) {
 		boolean ok = true;
-		Image im = chart.snapshot(null, null);
-		try {
-			ImageIO.write(SwingFXUtils.fromFXImage(im, null), "png", file);
+		try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(file.toPath()))) {
+			new BitmapExporter(chart, os, dpi / SCREEN_DPI).write();
+			
+		} catch (IOException e) {
+			fileAlert(file, e);
+			ok = false;
+		}
+		return ok;
+	}
+	
+	/**
+	 * save chart as scalable vector graphics in the size currently shown
+	 * @param file
+	 * @return true when successful
+	 */
+	public boolean saveSvg(File file) {
+		return saveSvg(file, chart.getWidth());
+	}
+	
+	/**
+	 * save chart as scalable vector graphics, series are written from data, 
+	 * details smaller than one pixel at the given size are omitted
+	 * @param file
+	 * @param width target width of image, height is scaled accordingly
+	 * @return true when successful
+	 */
+	public boolean saveSvg(File file, double width) {
+		boolean ok = true;
+		try (BufferedWriter bw = Files.newBufferedWriter(file.toPath())) {
+			new SvgExporter(chart, bw, width).write();
 			
 		} catch (IOException e) {
 			fileAlert(file, e);
@@ -172,6 +287,15 @@ public class DataPlotter {
 		chart.setAxesEqual();
 	}
 	
+	/**
+	 * share the x-axis with all other plotters of the group
+	 * @param group the group to join, null to leave the current group
+	 */
+	public void setAxisGroup(AxisGroup group) {
+		if (group != null) group.add(chart);
+		else if (chart.getAxisGroup() != null) chart.getAxisGroup().remove(chart);
+	}
+	
 	public Pane getPane() {
 		return vbox;
 	}
@@ -215,6 +339,63 @@ public class DataPlotter {
 		return chart.getData().removeIf(series -> series.getName().equals(seriesName));
 	}
 	
+	/**
+	 * overwrite the y values of a series in place, meant for refreshing a series of fixed length many times per second
+	 * line, style and legend entry are kept, the plot is redrawn once at the next pulse,
+	 * repeated updates allocate no new arrays
+	 * from then on the values are held in the plot only, the Data objects of the series are removed,
+	 * Data objects added to the series later replace the values held in the plot
+	 * @param series series of this plot
+	 * @param y new values, same number as before
+	 */
+	public void updateSeries(Series <Number, Number> series, double[] y) {
+		chart.updateValues(series, null, y);
+	}
+	
+	/**
+	 * overwrite the x and y values of a series in place, see {@link #updateSeries(Series, double[])}
+	 * @param series series of this plot
+	 * @param x new values, same number as before
+	 * @param y new values, same number as before
+	 */
+	public void updateSeries(Series <Number, Number> series, double[] x, double[] y) {
+		chart.updateValues(series, x, y);
+	}
+	
+	/**
+	 * append a value to a series, the plot is redrawn once at the next pulse however many values are appended
+	 * series created from Data objects get a new Data object, others hold the value in the plot only
+	 * @param series series of this plot
+	 * @param x
+	 * @param y
+	 */
+	public void append(Series <Number, Number> series, double x, double y) {
+		chart.appendValue(series, x, y);
+	}
+	
+	public void append(Series <Number, Number> series, double[] x, double[] y) {
+		if (x.length != y.length) throw new RuntimeException("unequal number of data elements, x=" + x.length + ", y=" + y.length);
+		for (int i = 0; i < x.length; i++) chart.appendValue(series, x[i], y[i]);
+	}
+	
+	/**
+	 * estimated memory retained by a series in bytes, 
+	 * counts values, prepared geometry, compressed history, Data objects and symbol nodes
+	 * @param series series of this plot
+	 * @return bytes
+	 */
+	public long estimateRetainedBytes(Series <Number, Number> series) {
+		return chart.estimateRetainedBytes(series);
+	}
+	
+	/**
+	 * estimated memory retained by all series of this plot and by the rasters of the chart in bytes
+	 * @return bytes
+	 */
+	public long estimateRetainedBytes() {
+		return chart.estimateRetainedBytes();
+	}
+	
 	public Builder builder() {
 		return new Builder();
 	}
@@ -230,7 +411,7 @@ public class DataPlotter {
 	private void fileAlert(File file, Exception e) {
 		Alert alert = new Alert(AlertType.ERROR);
 		alert.setHeaderText(null);
-		alert.setContentText("error writing file\n" + file + "\n" + e.getLocalizedMessage());
+		alert.setContentText("error accessing file\n" + file + "\n" + e.getLocalizedMessage());
 		alert.showAndWait();
 	}
 	
@@ -320,6 +501,8 @@ public class DataPlotter {
 		private DataSymbol symbol;
 		private boolean isFilled = false;
 		private Boolean hasLegendEntry = true;
+		private boolean isDensity = false;
+		private boolean isCompressed = false;
 		
 		/**
 		 * add data to the chart
@@ -328,6 +511,7 @@ public class DataPlotter {
 		public Series <Number, Number> plot() {
 			if (countX() != countY()) throw new RuntimeException("unequal number of data elements, x=" + countX() + ", y=" + countY());
 			if (isFilled && color == null) throw new RuntimeException("setting fill requires setting color");
+			if (isCompressed && dataX != null && Kernels.isAscending(dataX, dataX.length) == false) throw new RuntimeException("x values of compressed series must be ascending");
 			
 			StringBuilder cssSymbol = new StringBuilder(""), cssLine = new StringBuilder("");
 			if (symbol != null) {
@@ -348,19 +532,20 @@ public class DataPlotter {
 			}
 			
 			ObservableList <Data <Number, Number>> dataList = FXCollections.observableArrayList();
-			for (int i = 0; i < countX(); i++) dataList.add(new Data <Number, Number> (dataX[i], dataY[i]));
+			if (isDensity == false && isCompressed == false) {
+				for (int i = 0; i < countX(); i++) dataList.add(new Data <Number, Number> (dataX[i], dataY[i]));
+			}
 			series.setData(dataList);
 			chart.getData().add(series);
 			series.setName(name);
 			series.getNode().setStyle(cssLine.toString());
+			if (isCompressed) chart.setCompressedValues(series, dataX, dataY, isDensity);
+			else if (isDensity) chart.setDetachedValues(series, dataX, dataY, true);
 
 			//set properties AFTER series has been added to chart
-			series.getData().forEach(d -> symbolSettings(d, cssSymbol.toString()));
-			series.getData().addListener((ListChangeListener <Data <Number, Number>>) change -> {
-				while (change.next()) {
-					for (Data <Number, Number> d : change.getAddedSubList()) symbolSettings(d, cssSymbol.toString());
-				}
-			});
+			SeriesOwner owner = new SeriesOwner(series, cssSymbol.toString());
+			ownerMap.put(series, owner);
+			series.getData().forEach(owner::own);
 			chart.putLegendEntry(series.getNode(), hasLegendEntry);
 			plotCount++;
 			return series;
@@ -396,19 +581,33 @@ public class DataPlotter {
 			return this;
 		}
 		
-		/*
-		 * ------------------------- private members
+		/**
+		 * draw the series as density map of its points instead of a line, 
+		 * meant for scatter data with millions of points, no Data objects and no symbols are created
+		 * @param isDensity
+		 * @return Builder object
 		 */
+		public Builder setDensity(boolean isDensity) {
+			this.isDensity = isDensity;
+			return this;
+		}
 		
-		private void symbolSettings(Data <Number, Number> d, String cssSymbol) {
-			Tooltip tt = new Tooltip(String.format("x=%1.4f\ny=%1.4f", d.getXValue(), d.getYValue()));
-//			tt.setShowDelay(Duration.millis(250)); // Java 11
-			Node node = d.getNode();
-			Tooltip.install(node, tt);
-			node.setStyle(cssSymbol);
-			node.visibleProperty().bind(cbSymbols.selectedProperty());
+		/**
+		 * keep the values compressed in blocks, meant for long running series that are extended with
+		 * {@link DataPlotter#append(Series, double, double)}, x values must be ascending, 
+		 * no Data objects and no symbols are created
+		 * @param isCompressed
+		 * @return Builder object
+		 */
+		public Builder setCompressed(boolean isCompressed) {
+			this.isCompressed = isCompressed;
+			return this;
 		}
 		
+		/*
+		 * ------------------------- private members
+		 */
+		
 		private <E> Builder setValues(Collection <E> elements, ToDoubleFunction <E> mapper, int axisIdx) {
 			return setValues(elements.stream().mapToDouble(mapper).toArray(), axisIdx);
 		}
@@ -478,6 +677,90 @@ public class DataPlotter {
 		}
 	}
 	
+	/**
+	 * create the tooltip when the mouse first enters the node instead of up front
+	 * @return handler waiting for the mouse, removes itself when done
+	 */
+	private static EventHandler <MouseEvent> installLazyTooltip(Node node, Supplier <Tooltip> factory) {
+		EventHandler <MouseEvent> handler = new EventHandler <MouseEvent> () {
+			
+			@Override
+			public void handle(MouseEvent event) {
+				node.removeEventHandler(MouseEvent.MOUSE_ENTERED, this);
+				Tooltip.install(node, factory.get());
+			}
+		};
+		node.addEventHandler(MouseEvent.MOUSE_ENTERED, handler);
+		return handler;
+	}
+	
+	/**
+	 * bindings, listeners and tooltips of a series created by a Builder,
+	 * released for single symbols when their Data object is removed and for all when the series leaves the chart
+	 */
+	private class SeriesOwner {
+		
+		private final Series <Number, Number> series;
+		private final String cssSymbol;
+		private final Map <Node, EventHandler <MouseEvent>> handlerMap = new HashMap <> ();		//tooltips not yet created
+		private final Map <Node, Tooltip> tooltipMap = new HashMap <> ();
+		private final ListChangeListener <Data <Number, Number>> dataListener = change -> {
+			while (change.next()) {
+				for (Data <Number, Number> d : change.getRemoved()) disown(d.getNode());
+				for (Data <Number, Number> d : change.getAddedSubList()) own(d);
+			}
+		};
+		
+		SeriesOwner(Series <Number, Number> series, String cssSymbol) {
+			this.series = series;
+			this.cssSymbol = cssSymbol;
+			series.getData().addListener(dataListener);
+		}
+		
+		void own(Data <Number, Number> d) {
+			Node node = d.getNode();
+			if (node == null) return;
+			node.setStyle(cssSymbol);
+			node.visibleProperty().bind(cbSymbols.selectedProperty());
+			handlerMap.put(node, installLazyTooltip(node, () -> {
+				Tooltip tt = new Tooltip(String.format("x=%1.4f\ny=%1.4f", d.getXValue(), d.getYValue()));
+				tt.setOnShowing(event -> {		//values may have been updated in place
+					if (chart.getData().contains(series) == false) return;
+					SeriesBuffer buffer = chart.getBuffer(series);
+					int idx = series.getData().indexOf(d);
+					if (idx >= 0 && idx < buffer.size) tt.setText(String.format("x=%1.4f\ny=%1.4f", buffer.x[idx], buffer.y[idx]));
+				});
+//				tt.setShowDelay(Duration.millis(250)); // Java 11
+				handlerMap.remove(node);
+				tooltipMap.put(node, tt);
+				return tt;
+			}));
+		}
+		
+		void disown(Node node) {
+			if (node == null) return;
+			node.visibleProperty().unbind();
+			EventHandler <MouseEvent> handler = handlerMap.remove(node);
+			if (handler != null) node.removeEventHandler(MouseEvent.MOUSE_ENTERED, handler);
+			Tooltip tt = tooltipMap.remove(node);
+			if (tt != null) Tooltip.uninstall(node, tt);
+		}
+		
+		void release() {
+			series.getData().removeListener(dataListener);
+			new ArrayList <> (handlerMap.keySet()).forEach(this::disown);
+			new ArrayList <> (tooltipMap.keySet()).forEach(this::disown);
+		}
+	}
+	
+	/**
+	 * style sheet shared by all plotters, looked up once per jvm
+	 */
+	private static class Stylesheet {
+		
+		static final String URL = DataPlotter.class.getResource("/res/dataPlotter.css").toExternalForm();
+	}
+	
 	private class BoundsEditor extends Stage {
 
 		Button btnOK = new Button("OK");
@@ -523,6 +806,7 @@ public class DataPlotter {
 				axisX.setAutoRanging(false);
 				axisX.setLowerBound(values[0].get());
 				axisX.setUpperBound(values[1].get());
+				if (chart.getAxisGroup() != null) chart.getAxisGroup().setRange(values[0].get(), values[1].get());
 				axisY.setAutoRanging(false);
 				axisY.setLowerBound(values[2].get());
 				axisY.setUpperBound(values[3].get());
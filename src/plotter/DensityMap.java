@@ -0,0 +1,102 @@
+package plotter;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+/**
+ * 2d histogram of the points of a series with one bin per pixel of the plot area, mapped to colors
+ * only points within the viewport are counted, points are split into parts binned in parallel,
+ * the first part bins into the array of the result, the others into scratch arrays kept for the next map,
+ * the number of parts is limited so that the scratch arrays stay small compared to the points
+ */
+class DensityMap {
+
+	private static final int MIN_PART_SIZE = 1 << 16;
+	private static final int MAX_SCRATCH_BINS = 1 << 23;			//bins of all scratch arrays of one map, 32 MB
+	private static final int[] COLORS = colorTable(256);
+	private static final Queue <int[]> SCRATCH = new ConcurrentLinkedQueue <> ();
+
+	final int[] argb;
+	final int width, height;
+
+	private DensityMap(int[] argb, int width, int height) {
+		this.argb = argb;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * @param reuse array of a former map no longer drawn, reused for the result when its size fits, may be null
+	 */
+	static DensityMap compute(double[] x, double[] y, int count, boolean isAscending, Viewport vp, int[] reuse) {
+		int w = (int) Math.ceil(vp.width), h = (int) Math.ceil(vp.height);
+		int from = 0, to = count;
+		if (isAscending && vp.xScale > 0) {
+			from = Kernels.search(x, count, vp.xLo + (0 - vp.xOffset) / vp.xScale);
+			to = Kernels.search(x, count, vp.xLo + (vp.width - vp.xOffset) / vp.xScale);
+		}
+		int size = w * h;
+		int parts = Math.min(2 * Runtime.getRuntime().availableProcessors(), (to - from + MIN_PART_SIZE - 1) / MIN_PART_SIZE);
+		parts = Math.max(1, Math.min(parts, 1 + MAX_SCRATCH_BINS / Math.max(1, size)));
+		int[] bins = reuse != null && reuse.length == size ? reuse : new int[size];
+		Arrays.fill(bins, 0);
+		int[][] partBins = new int[parts][];
+		partBins[0] = bins;
+		int first = from, last = to, partSize = (to - from + parts - 1) / parts;
+		IntStream.range(0, parts).parallel().forEach(p -> {
+			if (p > 0) partBins[p] = scratch(size);
+			bin(x, y, first + p * partSize, Math.min(last, first + (p + 1) * partSize), vp, w, h, partBins[p]);
+		});
+		for (int p = 1; p < parts; p++) {
+			int[] part = partBins[p];
+			for (int i = 0; i < size; i++) bins[i] += part[i];
+			SCRATCH.offer(part);
+		}
+
+		int max = 0;
+		for (int c : bins) max = Math.max(max, c);
+		double f = (COLORS.length - 1) / Math.log1p(max);
+		for (int i = 0; i < bins.length; i++) {
+			bins[i] = bins[i] == 0 ? 0 : COLORS[(int) (Math.log1p(bins[i]) * f)];
+		}
+		return new DensityMap(bins, w, h);
+	}
+
+	//cleared scratch array of the size, arrays of other sizes are left to the garbage collector
+	private static int[] scratch(int size) {
+		for (int[] bins = SCRATCH.poll(); bins != null; bins = SCRATCH.poll()) {
+			if (bins.length == size) {
+				Arrays.fill(bins, 0);
+				return bins;
+			}
+		}
+		return new int[size];
+	}
+
+	private static void bin(double[] x, double[] y, int from, int to, Viewport vp, int w, int h, int[] bins) {
+		for (int i = from; i < to; i++) {
+			double px = vp.xOffset + (x[i] - vp.xLo) * vp.xScale;
+			double py = vp.yOffset + (y[i] - vp.yLo) * vp.yScale;
+			if (px >= 0 && px < w && py >= 0 && py < h) bins[(int) py * w + (int) px]++;
+		}
+	}
+
+	//from light blue over green and yellow to dark red, opaque
+	private static int[] colorTable(int size) {
+		double[][] stops = {{0.60, 0.80, 1.00}, {0.20, 0.70, 0.40}, {1.00, 0.85, 0.10}, {0.90, 0.30, 0.10}, {0.50, 0.00, 0.05}};
+		int[] table = new int[size];
+		for (int i = 0; i < size; i++) {
+			double pos = (double) i / (size - 1) * (stops.length - 1);
+			int k = Math.min((int) pos, stops.length - 2);
+			double t = pos - k;
+			int argb = 0xff;
+			for (int c = 0; c < 3; c++) {
+				argb = argb << 8 | (int) Math.round(255 * (stops[k][c] + (stops[k + 1][c] - stops[k][c]) * t));
+			}
+			table[i] = argb;
+		}
+		return table;
+	}
+}
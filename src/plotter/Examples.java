@@ -2,6 +2,8 @@ package plotter;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.DoubleStream;
 
 import javafx.application.Application;
@@ -172,6 +174,88 @@ public class Examples extends Application {
 						.plot();
 					label.setText("nice heart curve");
 					trigger.setDisable(true);
+				},
+				
+				() -> {
+					Random random = new Random();
+					int n = 2_000_000;
+					double[] x = new double[n], y = new double[n];
+					for (int i = 0; i < n; i++) {
+						double t = random.nextDouble() * 2 * Math.PI, r = 1 + random.nextGaussian() * 0.1;
+						x[i] = 16 * Math.pow(Math.sin(t), 3) * r;
+						y[i] = (13 * Math.cos(t) - 5 * Math.cos(2*t) - 2 * Math.cos(3*t) - Math.cos(4*t)) * r;
+					}
+					plotter.builder()
+						.setX(x)
+						.setY(y)
+						.setDensity(true)
+						.setName("Heart density")
+						.plot();
+					label.setText("density of 2 million points");
+					trigger.setDisable(true);
+				},
+				
+				() -> {
+					Random random = new Random();
+					double[] y = new double[8192];
+					Series <Number, Number> wave = plotter.builder()
+						.setY(y)
+						.setColor(Color.DARKCYAN)
+						.setSymbol(DataSymbol.NONE)
+						.setName("waveform")
+						.plot();
+					trigger.setOnAction(event -> {
+						value++;
+						for (int i = 0; i < y.length; i++) y[i] = Math.sin(2 * Math.PI * (i + 97 * value) / 1024) + random.nextGaussian() * 0.05;
+						plotter.updateSeries(wave, y);
+					});
+					label.setText("trigger: refresh waveform in place");
+					trigger.setDisable(false);
+				},
+				
+				() -> {
+					Random random = new Random();
+					Series <Number, Number> history = plotter.builder()
+						.setColor(Color.DARKRED)
+						.setSymbol(DataSymbol.NONE)
+						.setCompressed(true)
+						.setName("temperature")
+						.plot();
+					double[] t = new double[500_000], v = new double[t.length];
+					trigger.setOnAction(event -> {
+						for (int i = 0; i < t.length; i++) {
+							t[i] = (value * t.length + i) * 0.01;
+							v[i] = Math.round(100 * (20 + 5 * Math.sin(t[i] * 1e-3) + random.nextGaussian() * 0.05)) / 100.0;
+						}
+						value++;
+						plotter.append(history, t, v);
+					});
+					trigger.fire();
+					label.setText("trigger: append half a million values to compressed series");
+					trigger.setDisable(false);
+				},
+				
+				() -> {
+					trigger.setOnAction(event -> {
+						long now = System.currentTimeMillis();
+						TimeAxis timeAxis = new TimeAxis(now, TimeUnit.MILLISECONDS);
+						DataPlotter timePlotter = new DataPlotter(timeAxis);
+						long[] times = new long[120_000];
+						double[] v = new double[times.length];
+						for (int i = 0; i < times.length; i++) {
+							times[i] = now - (times.length - i) * 10_000L;			//one value every 10 s
+							v[i] = 20 + 5 * Math.sin(i * 2 * Math.PI / 8640);		//daily cycle
+						}
+						timePlotter.builder()
+							.setX(timeAxis.toValues(times))
+							.setY(v)
+							.setSymbol(DataSymbol.NONE)
+							.setName("temperature")
+							.plot();
+						timePlotter.showExternal();
+					});
+					label.setText("trigger: open two weeks of values on a time axis, zoom down to seconds");
+					trigger.setDisable(false);
 				}
 				
 				);
@@ -0,0 +1,56 @@
+package plotter;
+
+import java.util.Random;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * memory and decoding time of compressed series for signals of different kinds,
+ * checks that decoding gives back every value bit for bit
+ * run with the number of values as argument, default is 4 million
+ */
+public class HistoryBenchmark {
+
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+		Random random = new Random(1);
+		System.out.println(String.format("%,d values, plain size %,d bytes, average of %d rounds", count, 16L * count, ROUNDS));
+		run("sensor, 2 decimals", count, i -> i * 0.01, i -> Math.round(100 * (20 + 5 * Math.sin(i * 1e-4) + random.nextGaussian() * 0.05)) / 100.0);
+		run("counter, steps", count, i -> i, i -> Math.floor(i / 100.0));
+		run("sine, full precision", count, i -> i * 0.001, i -> Math.sin(i * 0.001));
+		run("noise", count, i -> i * 0.001, i -> random.nextGaussian());
+	}
+
+	private static void run(String name, int count, IntToDoubleFunction fx, IntToDoubleFunction fy) {
+		double[] x = new double[count], y = new double[count];
+		SeriesHistory history = new SeriesHistory();
+		for (int i = 0; i < count; i++) {
+			x[i] = fx.applyAsDouble(i);
+			y[i] = fy.applyAsDouble(i);
+			history.append(x[i], y[i]);
+		}
+		SeriesHistory.Snapshot snapshot = history.snapshot();
+		SeriesBuffer all = snapshot.decode(x[0], x[count - 1], 0.0);
+		for (int i = 0; i < count; i++) {
+			if (Double.doubleToRawLongBits(all.x[i]) != Double.doubleToRawLongBits(x[i]) 
+					|| Double.doubleToRawLongBits(all.y[i]) != Double.doubleToRawLongBits(y[i])) {
+				throw new RuntimeException(name + ", decoded value differs at index " + i);
+			}
+		}
+
+		double range = x[count - 1] - x[0], pixel = range / 2000;
+		long decodeAll = measure(() -> snapshot.decode(x[0], x[count - 1], 0.0));
+		long decodeWindow = measure(() -> snapshot.decode(x[count / 2], x[count / 2] + range / 100, 0.0));
+		long summaries = measure(() -> snapshot.decode(x[0], x[count - 1], pixel));
+		System.out.println(String.format("%-22s ratio %5.2f, decode all %7.2f ms, 1%% window %6.3f ms, 2000 pixel overview %6.3f ms", 
+				name, 16.0 * count / history.byteSize(), decodeAll / 1e6, decodeWindow / 1e6, summaries / 1e6));
+	}
+
+	private static long measure(Runnable task) {
+		for (int i = 0; i < ROUNDS; i++) task.run();		//warm up
+		long t = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) task.run();
+		return (System.nanoTime() - t) / ROUNDS;
+	}
+}
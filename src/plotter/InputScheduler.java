@@ -0,0 +1,186 @@
+package plotter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.Node;
+
+/**
+ * merges scroll and drag events arriving between two pulses into one zoom per target and one pan,
+ * applied at the start of the next pulse, so the cost of a gesture does not depend on the rate of events
+ * zoom is proportional to the summed scroll delta and anchored at the latest cursor position,
+ * after releasing a drag, panning may continue with the velocity of the drag and slow down
+ */
+class InputScheduler {
+
+	/**
+	 * zoom the axes of a target by a factor of their range around a position in coordinates of the target
+	 */
+	interface ZoomAction {
+		void zoom(Node target, double x, double y, double factor);
+	}
+
+	/**
+	 * pan the axes of a target so that the position where dragging started moves to x, y
+	 */
+	interface PanAction {
+		void pan(Node target, double x, double y);
+	}
+
+	private static final double ZOOM_FACTOR = 1.1;				//per step of a mouse wheel
+	private static final double DELTA_PER_STEP = 40.0;			//scroll delta of one step of a mouse wheel
+	private static final double VELOCITY_SMOOTHING = 0.6;		//weight of the latest drag event
+	private static final double INERTIA_TIME = 0.3;				//seconds until velocity has decayed to 1/e
+	private static final double MIN_VELOCITY = 20.0;			//pixel per second at which inertial panning ends
+	private static final long MAX_RELEASE_DELAY = 50_000_000L;	//nanoseconds between last drag and release to keep velocity
+
+	private final ZoomAction zoomAction;
+	private final PanAction panAction, anchorAction;
+	private final Runnable panFinished;
+	private final Map <Node, Scroll> scrollMap = new LinkedHashMap <> ();
+	private final AnimationTimer timer = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			pulse(now);
+		}
+	};
+	private boolean isRunning, isInertial;
+	private Node dragTarget;
+	private double dragX, dragY, velocityX, velocityY;
+	private long dragTime, lastPulse;
+	private boolean isDragPending, isCoasting;
+
+	/**
+	 * @param zoomAction called once per pulse and target with the combined factor
+	 * @param panAction called once per pulse with the latest position
+	 * @param anchorAction called after zooming while dragging, panning continues from this position and the zoomed range
+	 * @param panFinished called when panning has ended, after release or when inertial panning has come to rest
+	 */
+	InputScheduler(ZoomAction zoomAction, PanAction panAction, PanAction anchorAction, Runnable panFinished) {
+		this.zoomAction = zoomAction;
+		this.panAction = panAction;
+		this.anchorAction = anchorAction;
+		this.panFinished = panFinished;
+	}
+
+	/**
+	 * continue panning with the velocity of the drag after release
+	 */
+	void setInertial(boolean isInertial) {
+		this.isInertial = isInertial;
+	}
+
+	/**
+	 * scrolling ends inertial panning, which would otherwise pan from the range before zooming
+	 */
+	void scroll(Node target, double x, double y, double deltaY) {
+		if (deltaY == 0) return;
+		stopCoasting();
+		Scroll scroll = scrollMap.computeIfAbsent(target, node -> new Scroll());
+		scroll.x = x;
+		scroll.y = y;
+		scroll.delta += deltaY;
+		start();
+	}
+
+	/**
+	 * dragging starts, ends inertial panning of a former drag
+	 */
+	void press(Node target, double x, double y) {
+		stopCoasting();
+		dragTarget = target;
+		dragX = x;
+		dragY = y;
+		velocityX = velocityY = 0;
+		dragTime = System.nanoTime();
+	}
+
+	void drag(double x, double y) {
+		if (dragTarget == null) return;
+		long time = System.nanoTime();
+		double dt = (time - dragTime) / 1e9;
+		if (dt > 0) {
+			velocityX = VELOCITY_SMOOTHING * (x - dragX) / dt + (1 - VELOCITY_SMOOTHING) * velocityX;
+			velocityY = VELOCITY_SMOOTHING * (y - dragY) / dt + (1 - VELOCITY_SMOOTHING) * velocityY;
+		}
+		dragX = x;
+		dragY = y;
+		dragTime = time;
+		isDragPending = true;
+		start();
+	}
+
+	/**
+	 * dragging ends, the latest position is applied at once
+	 */
+	void release() {
+		if (dragTarget == null) return;
+		if (isDragPending) {
+			isDragPending = false;
+			panAction.pan(dragTarget, dragX, dragY);
+		}
+		boolean isMoving = System.nanoTime() - dragTime < MAX_RELEASE_DELAY && Math.hypot(velocityX, velocityY) > MIN_VELOCITY;
+		if (isInertial && isMoving) {
+			isCoasting = true;
+			lastPulse = 0;
+			start();
+
+		} else {
+			dragTarget = null;
+			panFinished.run();
+		}
+	}
+
+	private void stopCoasting() {
+		if (isCoasting) {
+			isCoasting = false;
+			dragTarget = null;
+			panFinished.run();
+		}
+	}
+
+	private void start() {
+		if (isRunning == false) {
+			isRunning = true;
+			timer.start();
+		}
+	}
+
+	//pan to the latest position before zooming, then take the zoomed range as new start of panning
+	private void pulse(long now) {
+		if (isDragPending) {
+			isDragPending = false;
+			panAction.pan(dragTarget, dragX, dragY);
+		}
+		boolean isZoomed = scrollMap.isEmpty() == false;
+		for (Map.Entry <Node, Scroll> entry : scrollMap.entrySet()) {
+			Scroll scroll = entry.getValue();
+			zoomAction.zoom(entry.getKey(), scroll.x, scroll.y, Math.pow(ZOOM_FACTOR, -scroll.delta / DELTA_PER_STEP));
+		}
+		scrollMap.clear();
+		if (isZoomed && dragTarget != null) anchorAction.pan(dragTarget, dragX, dragY);
+
+		if (isCoasting) {			//neither dragging nor scrolling while coasting
+			double dt = lastPulse == 0 ? 0 : (now - lastPulse) / 1e9;
+			double decay = Math.exp(-dt / INERTIA_TIME);
+			dragX += velocityX * INERTIA_TIME * (1 - decay);			//distance covered while the velocity decays
+			dragY += velocityY * INERTIA_TIME * (1 - decay);
+			velocityX *= decay;
+			velocityY *= decay;
+			lastPulse = now;
+			panAction.pan(dragTarget, dragX, dragY);
+			if (Math.hypot(velocityX, velocityY) < MIN_VELOCITY) stopCoasting();
+			return;
+		}
+		timer.stop();
+		isRunning = false;
+	}
+
+	/**
+	 * scroll deltas of one target since the last pulse
+	 */
+	private static class Scroll {
+		double x, y, delta;
+	}
+}
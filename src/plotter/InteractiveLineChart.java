@@ -1,26 +1,86 @@
 package plotter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Group;
 import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.ValueAxis;
 import javafx.scene.control.Label;
+import javafx.scene.image.WritableImage;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.*;
+import javafx.scene.paint.Color;
 import javafx.scene.shape.Line;
 import javafx.scene.shape.Shape;
+import javafx.scene.shape.StrokeLineJoin;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Transform;
+import javafx.stage.Window;
 
 public class InteractiveLineChart extends LineChart <Number, Number> {
 
 	private double xm, xLo, xHi, ym, yLo, yHi;
 	private boolean isPanning;
-	private static final double ZOOM_FACTOR = 1.1;
 	private static final double LEGEND_LINE_LENGTH = 10.0;
 	private Map <Node, Boolean> legendEntryMap = new HashMap <> ();
+	//overlays are kept apart from the plot content, moving them neither lays out nor repaints series
+	private final Group overlayLayer = new Group();
+	private final Line crosshairLine = new Line();
+	private final Label readout = new Label();
+	private final BooleanProperty readoutVisible = new SimpleBooleanProperty(this, "readoutVisible", false);
+	private static final double READOUT_OFFSET = 12.0;
+	private final InputScheduler input = new InputScheduler(this::zoomTarget, this::panTarget, this::anchorPan, this::panFinished);
+	private final BooleanProperty inertialPanning = new SimpleBooleanProperty(this, "inertialPanning", false);
+	private final List <Node> cachedLayers;
+	private final InvalidationListener crosshairListener = inv -> layoutCrosshair();
+	private AxisGroup axisGroup;
+	
+	//series lines are drawn to a canvas from geometry prepared by worker threads
+	private static final ExecutorService GEOMETRY_WORKERS = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+		Thread thread = new Thread(runnable, "plotter-geometry");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final Canvas seriesCanvas = new Canvas();
+	private final Map <Series <Number, Number>, SeriesBuffer> bufferMap = new HashMap <> ();
+	private final Map <Data <Number, Number>, Series <Number, Number>> seriesOfData = new HashMap <> ();	//finds the series of a changed item
+	private final AtomicBoolean isSwapPending = new AtomicBoolean(false);
+	private Viewport viewport;
+	private volatile long generation;		//incremented on every change of viewport
+	private static final int STROKE_CHUNK = 8192;
+	private double[] chunkX, chunkY, envelopeX, envelopeY;		//reused for stroking values in chunks
+	private WritableImage panImage;			//series layer when panning started, shifted while dragging
+	private boolean isBlitPending;			//bitmap is taken at the first drag step, not on every click
+	private Viewport panViewport;
+	private static final double SCALE_TOLERANCE = 1e-9;
+	private boolean isExporting;
+	private final RenderScheduler scheduler = new RenderScheduler(this::qualityChanged);
+	private long finishedGeneration = -1;
+	private boolean areSymbolsHidden;
+	private boolean isRangeStale;				//values appended outside of Data objects
+	private static final long DATA_BYTES = 208;			//Data object with its properties, boxed values and entry in seriesOfData
+	private static final long SYMBOL_BYTES = 1200;		//symbol region with style and css state
 	
 	public InteractiveLineChart(ValueAxis <Number> xAxis, ValueAxis <Number> yAxis) {
 		super(xAxis, yAxis);
@@ -28,65 +88,87 @@ public class InteractiveLineChart extends LineChart <Number, Number> {
 		setAlternativeColumnFillVisible(false);
 		setAxisSortingPolicy(SortingPolicy.NONE);
 		legendSideProperty().addListener(inv -> updateLegend());
+		crosshairLine.getStyleClass().add("chart-crosshair");
+		crosshairLine.setVisible(false);
+		readout.getStyleClass().add("chart-readout");
+		readout.setVisible(false);
+		seriesCanvas.setManaged(false);
+		seriesCanvas.setMouseTransparent(true);
+		getPlotChildren().add(0, seriesCanvas);
+		
+		//layers: background and grid, series with symbols, overlays on top within the same clip
+		Group plotContent = (Group) seriesCanvas.getParent();
+		overlayLayer.getChildren().addAll(crosshairLine, readout);
+		overlayLayer.setManaged(false);
+		overlayLayer.setMouseTransparent(true);
+		overlayLayer.layoutXProperty().bind(plotContent.layoutXProperty());
+		overlayLayer.layoutYProperty().bind(plotContent.layoutYProperty());
+		((Group) plotContent.getParent()).getChildren().add(overlayLayer);
+		cachedLayers = Stream.of(".chart-plot-background", ".chart-alternative-row-fill", ".chart-alternative-column-fill",
+				".chart-vertical-grid-lines", ".chart-horizontal-grid-lines", ".chart-vertical-zero-line", ".chart-horizontal-zero-line")
+				.map(this::lookup)
+				.filter(node -> node != null)
+				.collect(Collectors.toCollection(ArrayList::new));
+		cachedLayers.add(plotContent);
+		setLayersCached(true);
 		
+		//events only feed the input scheduler, which zooms and pans once per pulse
 		Stream.of(getPlotArea(), xAxis, yAxis).forEach(node -> node.setOnMousePressed(mouseEvent -> {
 			if (mouseEvent.getButton() == MouseButton.PRIMARY) {
-				startPan(mouseEvent, xAxis, yAxis);
+				input.press(node, mouseEvent.getX(), mouseEvent.getY());
+				startPan(mouseEvent);
 			}
 		}));
 		
-		getPlotArea().setOnMouseDragged(mouseEvent -> {
-			if (isPanning) {
-				pan(xAxis, mouseEvent.getX(), xm, xLo, xHi);
-				pan(yAxis, mouseEvent.getY(), ym, yLo, yHi);
-			}
-		});
-		xAxis.setOnMouseDragged(mouseEvent -> {
+		Stream.of(getPlotArea(), xAxis, yAxis).forEach(node -> node.setOnMouseDragged(mouseEvent -> {
 			if (isPanning) {
-				pan(xAxis, mouseEvent.getX(), xm, xLo, xHi);
+				input.drag(mouseEvent.getX(), mouseEvent.getY());
 			}
-		});
-		yAxis.setOnMouseDragged(mouseEvent -> {
-			if (isPanning) {
-				pan(yAxis, mouseEvent.getY(), ym, yLo, yHi);
-			}
-		});
+		}));
 		
 		getPlotArea().setOnScroll(scrollEvent -> {
-			double f = scrollEvent.getDeltaY() < 0 ? ZOOM_FACTOR : 1 / ZOOM_FACTOR;
-			xAxis.setAutoRanging(false);
-			yAxis.setAutoRanging(false);
-			zoom(xAxis, scrollEvent.getX(), f);
-			zoom(yAxis, scrollEvent.getY(), f);
+			input.scroll(getPlotArea(), scrollEvent.getX(), scrollEvent.getY(), scrollEvent.getDeltaY());
 		});
 		xAxis.setOnScroll(scrollEvent -> {
 			if (scrollEvent.getX() > 0 && scrollEvent.getX() < xAxis.getWidth()) {
-				double f = scrollEvent.getDeltaY() < 0 ? ZOOM_FACTOR : 1 / ZOOM_FACTOR;
-				xAxis.setAutoRanging(false);
-				zoom(xAxis, scrollEvent.getX(), f);
+				input.scroll(xAxis, scrollEvent.getX(), scrollEvent.getY(), scrollEvent.getDeltaY());
 			}
 		});
 		yAxis.setOnScroll(scrollEvent -> {
 			if (scrollEvent.getY() > 0 && scrollEvent.getY() < yAxis.getHeight()) {
-				double f = scrollEvent.getDeltaY() < 0 ? ZOOM_FACTOR : 1 / ZOOM_FACTOR;
-				yAxis.setAutoRanging(false);
-				zoom(yAxis, scrollEvent.getY(), f);
+				input.scroll(yAxis, scrollEvent.getX(), scrollEvent.getY(), scrollEvent.getDeltaY());
 			}
 		});
 		
 		setOnMouseReleased(mouseEvent -> {
-			isPanning = false;
+			input.release();
 		});
+		inertialPanning.addListener((obs, oldVal, newVal) -> input.setInertial(newVal));
 		
 		setOnMouseClicked(mouseEvent -> {
-			if (mouseEvent.getClickCount() == 2) {
+			if (mouseEvent.getClickCount() == 2 && axisGroup == null) {
 				xAxis.setAutoRanging(true);
 				yAxis.setAutoRanging(true);
+				
+			} else if (mouseEvent.getClickCount() == 2) {
+				//y is scaled directly, autoranging of x and y may be bound to each other as in DataPlotter
+				axisGroup.resetRange();
+				scaleYToRange(axisGroup.getLowerBound(), axisGroup.getUpperBound());
 			}
 		});
+		
+		getPlotArea().setOnMouseMoved(mouseEvent -> {
+			if (axisGroup != null) axisGroup.crosshairProperty().set(xAxis.getValueForDisplay(mouseEvent.getX()).doubleValue());
+			if (isReadoutVisible()) layoutReadout(mouseEvent.getX(), mouseEvent.getY());
+		});
+		getPlotArea().setOnMouseExited(mouseEvent -> {
+			if (axisGroup != null) axisGroup.crosshairProperty().set(Double.NaN);
+			readout.setVisible(false);
+		});
+		readoutVisible.addListener(inv -> readout.setVisible(false));
 
 		getPlotArea().widthProperty().addListener((obs, oldVal, newVal) -> {
-			if (xAxis.isAutoRanging() == false)	zoom(xAxis, newVal.doubleValue() / 2.0, newVal.doubleValue() / oldVal.doubleValue());
+			if (xAxis.isAutoRanging() == false && axisGroup == null)	zoom(xAxis, newVal.doubleValue() / 2.0, newVal.doubleValue() / oldVal.doubleValue());
 		});
 		getPlotArea().heightProperty().addListener((obs, oldVal, newVal) -> {
 			if (yAxis.isAutoRanging() == false)	zoom(yAxis, newVal.doubleValue() / 2.0, newVal.doubleValue() / oldVal.doubleValue());
@@ -105,33 +187,228 @@ public class InteractiveLineChart extends LineChart <Number, Number> {
 		legendEntryMap.put(seriesNode, hasLegendEntry);
 	}
 	
-	private Region getPlotArea() {
+	/**
+	 * the group this chart shares its x-axis with, set by {@link AxisGroup#add(InteractiveLineChart)}
+	 * @return group or null
+	 */
+	public AxisGroup getAxisGroup() {
+		return axisGroup;
+	}
+	
+	void setAxisGroup(AxisGroup group) {
+		if (axisGroup != null) axisGroup.crosshairProperty().removeListener(crosshairListener);
+		axisGroup = group;
+		if (axisGroup != null) axisGroup.crosshairProperty().addListener(crosshairListener);
+		layoutCrosshair();
+	}
+	
+	/**
+	 * scale the y-axis to the data within the given range of x
+	 * @param lo lower limit of x
+	 * @param hi upper limit of x
+	 */
+	public void scaleYToRange(double lo, double hi) {
+		double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+		for (Series <Number, Number> series : getData()) {
+			SeriesBuffer buffer = getBuffer(series).within(lo, hi, 0.0);
+			double[] ext = Kernels.extentWithin(buffer.x, buffer.y, buffer.size, lo, hi);
+			min = Math.min(min, ext[0]);
+			max = Math.max(max, ext[1]);
+		}
+		if (max >= min) {
+			double margin = max > min ? (max - min) * CustomNumberAxis.MARGIN : Math.max(Math.abs(max), 1.0) * CustomNumberAxis.MARGIN;
+			getYAxis().setAutoRanging(false);
+			getYAxis().setLowerBound(min - margin);
+			getYAxis().setUpperBound(max + margin);
+		}
+	}
+	
+	/**
+	 * smallest and largest x value of all series
+	 * @return array {min, max}
+	 */
+	double[] getExtentX() {
+		return getExtent(true);
+	}
+	
+	private double[] getExtent(boolean isAxisX) {
+		double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+		for (Series <Number, Number> series : getData()) {
+			SeriesBuffer buffer = getBuffer(series);
+			double[] ext = buffer.history != null ? buffer.history.extent(isAxisX) : Kernels.extent(isAxisX ? buffer.x : buffer.y, buffer.size);
+			min = Math.min(min, ext[0]);
+			max = Math.max(max, ext[1]);
+		}
+		return new double[] {min, max};
+	}
+	
+	private void layoutCrosshair() {
+		double x = axisGroup == null ? Double.NaN : axisGroup.crosshairProperty().get();
+		boolean isVisible = Double.isNaN(x) == false && x >= getXAxis().getLowerBound() && x <= getXAxis().getUpperBound();
+		crosshairLine.setVisible(isVisible);
+		if (isVisible) {
+			double pos = getXAxis().getDisplayPosition(x);
+			crosshairLine.setStartX(pos);
+			crosshairLine.setEndX(pos);
+			crosshairLine.setStartY(0);
+			crosshairLine.setEndY(getPlotArea().getHeight());
+		}
+	}
+	
+	/**
+	 * show the values at the mouse position next to the cursor
+	 */
+	public BooleanProperty readoutVisibleProperty() {
+		return readoutVisible;
+	}
+	
+	public boolean isReadoutVisible() {
+		return readoutVisible.get();
+	}
+	
+	public void setReadoutVisible(boolean isVisible) {
+		readoutVisible.set(isVisible);
+	}
+	
+	/**
+	 * panning continues with the velocity of the drag after release and slows down
+	 */
+	public BooleanProperty inertialPanningProperty() {
+		return inertialPanning;
+	}
+	
+	public boolean isInertialPanning() {
+		return inertialPanning.get();
+	}
+	
+	public void setInertialPanning(boolean isInertial) {
+		inertialPanning.set(isInertial);
+	}
+	
+	private void layoutReadout(double x, double y) {
+		readout.setText(String.format("x=%1.4f\ny=%1.4f", getXAxis().getValueForDisplay(x).doubleValue(), getYAxis().getValueForDisplay(y).doubleValue()));
+		readout.setVisible(true);
+		readout.autosize();
+		double w = readout.getWidth(), h = readout.getHeight();
+		double posX = x + READOUT_OFFSET + w > getPlotArea().getWidth() ? x - READOUT_OFFSET - w : x + READOUT_OFFSET;
+		double posY = y + READOUT_OFFSET + h > getPlotArea().getHeight() ? y - READOUT_OFFSET - h : y + READOUT_OFFSET;
+		readout.relocate(posX, posY);
+	}
+	
+	/**
+	 * background and series layers are rasterized once and composited while unchanged,
+	 * so overlays move at constant cost, caching is turned off while the layers change on every frame
+	 */
+	private void setLayersCached(boolean isCached) {
+		cachedLayers.forEach(node -> node.setCache(isCached));
+	}
+	
+	Region getPlotArea() {
 		return (Region) lookup(".chart-plot-background");
 	}
 	
 	private void zoom(ValueAxis <Number> axis, double mousePos, double f) {
+		scheduler.interaction();
 		axis.setAutoRanging(false);
+		if (axis == getXAxis() && axisGroup != null) {
+			axisGroup.zoom(mousePos / axis.getWidth(), f);
+			return;
+		}
 		double mid = axis.getValueForDisplay(mousePos).doubleValue();
 		double lo = axis.getLowerBound(), hi = axis.getUpperBound();
 		axis.setLowerBound(mid - (mid - lo) * f);
 		axis.setUpperBound(mid + (hi - mid) * f);
 	}
 	
+	//the plot area zooms and pans both axes, an axis only itself
+	private void zoomTarget(Node target, double x, double y, double f) {
+		if (target != getYAxis()) zoom(getXAxis(), x, f);
+		if (target != getXAxis()) zoom(getYAxis(), y, f);
+	}
+	
+	private void panTarget(Node target, double x, double y) {
+		if (isBlitPending) {
+			isBlitPending = false;
+			startBlit();
+		}
+		if (target != getYAxis()) pan(getXAxis(), x, xm, xLo, xHi);
+		if (target != getXAxis()) pan(getYAxis(), y, ym, yLo, yHi);
+	}
+	
+	//panning continues from this position and the current range, after zooming while dragging
+	private void anchorPan(Node target, double x, double y) {
+		xm = x;
+		xLo = axisGroup != null ? axisGroup.getLowerBound() : getXAxis().getLowerBound();		//the group applies a zoom at the next pulse
+		xHi = axisGroup != null ? axisGroup.getUpperBound() : getXAxis().getUpperBound();
+		ym = y;
+		yLo = getYAxis().getLowerBound();
+		yHi = getYAxis().getUpperBound();
+	}
+	
+	private void panFinished() {
+		isPanning = false;
+		endBlit();
+	}
+	
 	private void pan(ValueAxis <Number> axis, double mousePos, double xm, double lo, double hi) {
+		scheduler.interaction();
 		axis.setAutoRanging(false);
 		double delta = (xm - mousePos) / axis.getScale();
+		if (axis == getXAxis() && axisGroup != null) {
+			delta = (xm - mousePos) * (hi - lo) / axis.getWidth();		//scale of the axis is outdated until the group applies a zoom
+			axisGroup.setRange(lo + delta, hi + delta);
+			return;
+		}
 		axis.setLowerBound(lo + delta);
 		axis.setUpperBound(hi + delta);
 	}
 	
-	private void startPan(MouseEvent mouseEvent, ValueAxis <Number> xAxis, ValueAxis <Number> yAxis) {
+	private void startPan(MouseEvent mouseEvent) {
 		isPanning = true;
-		xm = mouseEvent.getX();
-		xLo = xAxis.getLowerBound();
-		xHi = xAxis.getUpperBound();
-		ym = mouseEvent.getY();
-		yLo = yAxis.getLowerBound();
-		yHi = yAxis.getUpperBound();
+		anchorPan(null, mouseEvent.getX(), mouseEvent.getY());
+		isBlitPending = true;
+	}
+	
+	/**
+	 * keep the series layer as bitmap while panning, each drag step moves the bitmap and draws only the exposed strips,
+	 * not used while the frame is incomplete, for density maps, which cannot be drawn in strips,
+	 * or for visible series with unsorted x, whose values in a strip cannot be found without going through all of them
+	 */
+	private void startBlit() {
+		panImage = null;
+		if (isExporting || viewport == null || viewport.isEmpty() || isFrameComplete() == false) return;
+		for (Series <Number, Number> series : getData()) {
+			SeriesBuffer buffer = bufferMap.get(series);
+			boolean isVisible = series.getNode() != null && series.getNode().isVisible();
+			if (buffer.isDensity || (isVisible && buffer.isAscending == false)) return;
+		}
+		Window window = getScene() != null ? getScene().getWindow() : null;
+		SnapshotParameters params = new SnapshotParameters();
+		params.setFill(Color.TRANSPARENT);
+		if (window != null) params.setTransform(Transform.scale(window.getOutputScaleX(), window.getOutputScaleY()));	//sharp on hidpi screens
+		panImage = seriesCanvas.snapshot(params, null);
+		panViewport = viewport;
+	}
+	
+	/**
+	 * draw everything again for the final viewport, unless it has not moved,
+	 * geometry dropped while panning is requested again in any case
+	 */
+	private void endBlit() {
+		isBlitPending = false;
+		if (panImage == null) return;
+		panImage = null;
+		if (viewport.equals(panViewport) == false) {
+			generation++;
+			scheduler.frameStarted();
+		}
+		requestChartLayout();
+	}
+	
+	private boolean isShiftedPanViewport(Viewport vp) {
+		return vp.width == panViewport.width && vp.height == panViewport.height
+				&& Math.abs(vp.xScale - panViewport.xScale) <= SCALE_TOLERANCE * Math.abs(vp.xScale)
+				&& Math.abs(vp.yScale - panViewport.yScale) <= SCALE_TOLERANCE * Math.abs(vp.yScale);
 	}
 	
 	@Override
@@ -144,6 +421,454 @@ public class InteractiveLineChart extends LineChart <Number, Number> {
 		return (ValueAxis <Number>) (super.getYAxis());
 	}
 	
+	@Override
+	protected void seriesAdded(Series <Number, Number> series, int seriesIndex) {
+		super.seriesAdded(series, seriesIndex);
+		bufferMap.put(series, new SeriesBuffer());
+		for (Data <Number, Number> item : series.getData()) seriesOfData.put(item, series);
+	}
+	
+	@Override
+	protected void seriesRemoved(Series <Number, Number> series) {
+		legendEntryMap.remove(series.getNode());
+		super.seriesRemoved(series);
+		bufferMap.remove(series);
+		for (Data <Number, Number> item : series.getData()) seriesOfData.remove(item);
+		drawSeries();
+	}
+	
+	@Override
+	protected void dataItemAdded(Series <Number, Number> series, int itemIndex, Data <Number, Number> item) {
+		super.dataItemAdded(series, itemIndex, item);
+		seriesOfData.put(item, series);
+		SeriesBuffer buffer = bufferMap.get(series);
+		if (buffer == null) return;
+		if (buffer.isDirty == false && buffer.isDetached == false && itemIndex == buffer.size) buffer.append(item.getXValue().doubleValue(), item.getYValue().doubleValue());
+		else buffer.isDirty = true;
+	}
+	
+	@Override
+	protected void dataItemRemoved(Data <Number, Number> item, Series <Number, Number> series) {
+		super.dataItemRemoved(item, series);
+		seriesOfData.remove(item);
+		SeriesBuffer buffer = bufferMap.get(series);
+		if (buffer != null) buffer.isDirty = true;
+	}
+	
+	@Override
+	protected void dataItemChanged(Data <Number, Number> item) {
+		Series <Number, Number> series = seriesOfData.get(item);
+		if (series != null) bufferMap.get(series).isDirty = true;
+		super.dataItemChanged(item);
+	}
+	
+	/**
+	 * hand only the extent of the data to autoranging axes instead of every single value
+	 */
+	@Override
+	protected void updateAxisRange() {
+		if (getXAxis().isAutoRanging()) getXAxis().invalidateRange(extentList(getExtent(true)));
+		if (getYAxis().isAutoRanging()) getYAxis().invalidateRange(extentList(getExtent(false)));
+	}
+	
+	private List <Number> extentList(double[] ext) {
+		return ext[0] <= ext[1] ? Arrays.asList(ext[0], ext[1]) : Collections.emptyList();
+	}
+	
+	/**
+	 * line paths are not built here, the geometry of each series is prepared by worker threads 
+	 * and swapped in on the fx thread when finished, results for an outdated viewport are dropped
+	 */
+	@Override
+	protected void layoutPlotChildren() {
+		if (isExporting) return;
+		Viewport vp = new Viewport(getXAxis(), getYAxis());
+		if (panImage != null && isShiftedPanViewport(vp)) {
+			if (vp.equals(viewport) == false) {
+				viewport = vp;
+				generation++;
+				drawShifted(vp);
+			}
+			layoutCrosshair();
+			return;
+		}
+		panImage = null;
+		if (vp.equals(viewport) == false) {
+			viewport = vp;
+			generation++;
+			scheduler.frameStarted();
+			seriesCanvas.setWidth(vp.width);
+			seriesCanvas.setHeight(vp.height);
+		}
+		if (vp.isEmpty() == false) {
+			for (Series <Number, Number> series : getData()) {
+				SeriesBuffer buffer = getBuffer(series);
+				if (buffer.isRequested(generation) == false) requestGeometry(buffer, vp);
+			}
+		}
+		layoutCrosshair();
+	}
+	
+	SeriesBuffer getBuffer(Series <Number, Number> series) {
+		SeriesBuffer buffer = bufferMap.get(series);
+		if (buffer.isDirty) buffer.rebuild(series.getData());
+		return buffer;
+	}
+	
+	/**
+	 * hold values of the series in the chart only, no Data objects and no symbols are created
+	 * @param series series already added to this chart
+	 * @param x values or null for an empty series
+	 * @param y values or null for an empty series
+	 * @param isDensity draw as density map instead of line
+	 */
+	void setDetachedValues(Series <Number, Number> series, double[] x, double[] y, boolean isDensity) {
+		SeriesBuffer buffer = bufferMap.get(series);
+		buffer.setValues(x == null ? new double[0] : x, y == null ? new double[0] : y);
+		buffer.isDensity = isDensity;
+		requestChartLayout();
+	}
+	
+	/**
+	 * keep values of the series compressed in blocks, see {@link SeriesHistory}, no Data objects and no symbols are created
+	 * @param series series already added to this chart
+	 * @param x ascending values or null
+	 * @param y
+	 * @param isDensity draw as density map instead of line
+	 */
+	void setCompressedValues(Series <Number, Number> series, double[] x, double[] y, boolean isDensity) {
+		SeriesBuffer buffer = bufferMap.get(series);
+		buffer.history = new SeriesHistory();
+		buffer.isDetached = true;
+		buffer.isDirty = false;
+		buffer.isDensity = isDensity;
+		int count = x == null ? 0 : x.length;
+		for (int i = 0; i < count; i++) buffer.history.append(x[i], y[i]);
+		buffer.version++;
+		requestChartLayout();
+	}
+	
+	/**
+	 * append a value, series with Data objects get a new Data object, others keep it in the chart only
+	 * the range of autoranging axes is updated once at the next layout
+	 */
+	void appendValue(Series <Number, Number> series, double x, double y) {
+		SeriesBuffer buffer = bufferMap.get(series);
+		if (buffer == null) throw new RuntimeException("series is not part of this plot");
+		if (buffer.isDetached == false) {
+			series.getData().add(new Data <Number, Number> (x, y));
+			return;
+		}
+		buffer.append(x, y);
+		isRangeStale = true;
+		requestChartLayout();
+	}
+	
+	@Override
+	protected void layoutChildren() {
+		if (isRangeStale) {
+			isRangeStale = false;
+			updateAxisRange();
+		}
+		super.layoutChildren();
+	}
+	
+	/**
+	 * overwrite values of the series in place and redraw once at the next pulse
+	 * from then on values are held in the chart only, the Data objects of the series are removed on the first update
+	 * @param series series of this chart
+	 * @param x new x values or null to keep them
+	 * @param y new y values, same number as before
+	 */
+	void updateValues(Series <Number, Number> series, double[] x, double[] y) {
+		if (bufferMap.containsKey(series) == false) throw new RuntimeException("series is not part of this plot");
+		SeriesBuffer buffer = getBuffer(series);
+		if (buffer.isDetached == false) {
+			buffer.isDetached = true;							//removing Data objects no longer changes the values
+			series.getData().clear();
+		}
+		buffer.update(x, y);
+		isRangeStale = true;
+		requestChartLayout();
+	}
+	
+	private void requestGeometry(SeriesBuffer buffer, Viewport vp) {
+		long gen = generation;
+		int version = buffer.version;
+		SeriesHistory.Snapshot history = buffer.history != null ? buffer.history.snapshot() : null;
+		boolean isAscending = buffer.isAscending, isDensity = buffer.isDensity;
+		double bucket = scheduler.getBucket();
+		buffer.requestedGeneration = gen;
+		buffer.requestedVersion = version;
+		buffer.isComputing = true;
+		double[] px = buffer.x, py = buffer.y;				//never overwritten while counted as read
+		int count = buffer.size;
+		AtomicInteger readers = buffer.readers;
+		readers.incrementAndGet();
+		GEOMETRY_WORKERS.execute(() -> {
+			SeriesGeometry geometry;
+			try {
+				if (gen != generation) return;			//viewport changed while waiting
+				//compressed series: only blocks within the viewport, blocks narrower than a bucket as summary, all for density
+				SeriesBuffer values = history == null ? null : history.decode(vp.toValueX(0), vp.toValueX(vp.width), isDensity ? 0.0 : bucket / Math.abs(vp.xScale));
+				double[] x = values != null ? values.x : px, y = values != null ? values.y : py;
+				int n = values != null ? values.size : count;
+				geometry = buffer.takeSpare();
+				if (isDensity) geometry.computeDensity(x, y, n, isAscending, vp, gen, version);
+				else geometry.compute(x, y, n, isAscending, bucket, vp, gen, version);
+				
+			} finally {
+				readers.decrementAndGet();
+			}
+			SeriesGeometry replaced = buffer.pending.getAndSet(geometry);
+			if (replaced != null) buffer.spare.set(replaced);
+			if (isSwapPending.compareAndSet(false, true)) Platform.runLater(this::swapGeometry);
+		});
+	}
+	
+	private void swapGeometry() {
+		isSwapPending.set(false);
+		boolean isChanged = false, isOutdated = false;
+		for (SeriesBuffer buffer : bufferMap.values()) {
+			SeriesGeometry geometry = buffer.pending.getAndSet(null);
+			if (geometry != null && geometry.generation == buffer.requestedGeneration) buffer.isComputing = false;
+			if (geometry != null && geometry.generation == generation && panImage == null) {
+				if (buffer.geometry != null) buffer.spare.set(buffer.geometry);
+				buffer.geometry = geometry;
+				isChanged = true;
+				isOutdated |= geometry.version != buffer.version;		//former values, draw and request the current ones
+				
+			} else if (geometry != null) {
+				if (geometry.generation == generation) buffer.requestedGeneration = -1;		//dropped while panning
+				buffer.spare.set(geometry);
+			}
+		}
+		if (isChanged && isExporting == false) drawSeries();
+		if (isOutdated) requestChartLayout();
+		if (finishedGeneration != generation && isFrameComplete()) {
+			finishedGeneration = generation;
+			scheduler.frameFinished();
+		}
+	}
+	
+	/**
+	 * estimated memory retained by a series in bytes
+	 */
+	long estimateRetainedBytes(Series <Number, Number> series) {
+		SeriesBuffer buffer = bufferMap.get(series);
+		if (buffer == null) return 0;
+		long symbols = series.getData().stream().filter(data -> data.getNode() != null).count();
+		return buffer.byteSize() + DATA_BYTES * series.getData().size() + SYMBOL_BYTES * symbols;
+	}
+	
+	/**
+	 * estimated memory retained by all series and by the rasters of canvas and cached layers in bytes
+	 */
+	long estimateRetainedBytes() {
+		long bytes = 0;
+		for (Series <Number, Number> series : getData()) bytes += estimateRetainedBytes(series);
+		long raster = 4L * (long) seriesCanvas.getWidth() * (long) seriesCanvas.getHeight();
+		long cached = cachedLayers.stream().filter(Node::isCache).count();
+		return bytes + raster * (1 + cached);
+	}
+	
+	/**
+	 * all series have been drawn for the current viewport
+	 */
+	boolean isDrawn() {
+		return viewport != null && viewport.isEmpty() == false && isFrameComplete();
+	}
+	
+	private boolean isFrameComplete() {
+		for (SeriesBuffer buffer : bufferMap.values()) {
+			if (buffer.geometry == null || buffer.geometry.generation != generation) return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * quality of drawing has changed, prepare all series again
+	 * symbols are hidden while coarse and shown again after they have been placed with full quality
+	 */
+	private void qualityChanged() {
+		boolean isCoarse = scheduler.getQuality() == RenderScheduler.Quality.COARSE;
+		Stream.of(getXAxis(), getYAxis()).forEach(axis -> {
+			if (axis instanceof CustomNumberAxis) ((CustomNumberAxis) axis).setMinorTicksSuppressed(isCoarse);
+			if (axis instanceof TimeAxis) ((TimeAxis) axis).setMinorTicksSuppressed(isCoarse);
+		});
+		if (isCoarse && areSymbolsHidden == false) setSymbolOpacity(0.0);
+		setLayersCached(scheduler.getQuality() == RenderScheduler.Quality.FULL);
+		generation++;
+		scheduler.frameStarted();
+		requestChartLayout();
+	}
+	
+	private void setSymbolOpacity(double opacity) {
+		areSymbolsHidden = opacity == 0.0;
+		for (Series <Number, Number> series : getData()) {
+			for (Data <Number, Number> data : series.getData()) {
+				if (data.getNode() != null) data.getNode().setOpacity(opacity);
+			}
+		}
+	}
+	
+	private void drawSeries() {
+		GraphicsContext gc = seriesCanvas.getGraphicsContext2D();
+		gc.clearRect(0, 0, seriesCanvas.getWidth(), seriesCanvas.getHeight());
+		gc.setLineJoin(StrokeLineJoin.BEVEL);
+		for (Series <Number, Number> series : getData()) {
+			SeriesGeometry geometry = bufferMap.get(series).geometry;
+			Shape seriesShape = (Shape) series.getNode();
+			if (geometry == null || seriesShape == null) continue;
+			if (geometry.density != null) {
+				if (seriesShape.isVisible()) gc.drawImage(geometry.densityImage(), 0, 0);
+				
+			} else if (seriesShape.isVisible() && seriesShape.getStroke() != null) {
+				gc.setStroke(seriesShape.getStroke());
+				gc.setLineWidth(seriesShape.getStrokeWidth());
+				gc.strokePolyline(geometry.lineX, geometry.lineY, geometry.lineCount);
+			}
+			if (scheduler.getQuality() == RenderScheduler.Quality.FULL) layoutSymbols(series, geometry);
+		}
+		if (areSymbolsHidden && scheduler.getQuality() == RenderScheduler.Quality.FULL) setSymbolOpacity(1.0);
+	}
+	
+	/**
+	 * while panning, draw the bitmap of the series layer shifted by whole pixels,
+	 * exposed rows are drawn from the geometry the bitmap was made of, which extends beyond the canvas,
+	 * exposed columns from values outside the former range, found by binary search as only series with ascending x are blitted
+	 */
+	private void drawShifted(Viewport vp) {
+		double w = vp.width, h = vp.height;
+		double dx = Math.round(vp.toDisplayX(panViewport.xLo) - panViewport.toDisplayX(panViewport.xLo));
+		double dy = Math.round(vp.toDisplayY(panViewport.yLo) - panViewport.toDisplayY(panViewport.yLo));
+		GraphicsContext gc = seriesCanvas.getGraphicsContext2D();
+		gc.clearRect(0, 0, w, h);
+		gc.drawImage(panImage, dx, dy, seriesCanvas.getWidth(), seriesCanvas.getHeight());
+		double colsFrom = dx > 0 ? 0 : Math.max(0, w + dx), colsTo = dx > 0 ? Math.min(w, dx) : w;
+		double rowsFrom = dy > 0 ? 0 : Math.max(0, h + dy), rowsTo = dy > 0 ? Math.min(h, dy) : h;
+		double restFrom = dx > 0 ? colsTo : 0, restTo = dx > 0 ? w : colsFrom;
+		gc.setLineJoin(StrokeLineJoin.BEVEL);
+		for (Series <Number, Number> series : getData()) {
+			Shape seriesShape = (Shape) series.getNode();
+			if (seriesShape == null || seriesShape.isVisible() == false || seriesShape.getStroke() == null) continue;
+			SeriesBuffer buffer = bufferMap.get(series);
+			gc.setStroke(seriesShape.getStroke());
+			gc.setLineWidth(seriesShape.getStrokeWidth());
+			strokeShifted(gc, buffer.geometry, dx, dy, restFrom, rowsFrom, restTo, rowsTo);
+			if (colsTo > colsFrom) {
+				gc.save();
+				clip(gc, colsFrom, 0, colsTo, h);
+				strokeValues(gc, buffer, vp, colsFrom, colsTo, 0, 0, 1.0, scheduler.getBucket());
+				gc.restore();
+			}
+		}
+	}
+	
+	private void strokeShifted(GraphicsContext gc, SeriesGeometry geometry, double dx, double dy, double x0, double y0, double x1, double y1) {
+		if (geometry == null || x1 <= x0 || y1 <= y0) return;
+		gc.save();
+		clip(gc, x0, y0, x1, y1);
+		gc.translate(dx, dy);
+		gc.strokePolyline(geometry.lineX, geometry.lineY, geometry.lineCount);
+		gc.restore();
+	}
+	
+	private void clip(GraphicsContext gc, double x0, double y0, double x1, double y1) {
+		gc.beginPath();
+		gc.rect(x0, y0, x1 - x0, y1 - y0);
+		gc.clip();
+	}
+	
+	private void layoutSymbols(Series <Number, Number> series, SeriesGeometry geometry) {
+		int count = Math.min(geometry.count, series.getData().size());
+		for (int i = 0; i < count; i++) {
+			Node symbol = series.getData().get(i).getNode();
+			if (symbol != null) {
+				double w = symbol.prefWidth(-1), h = symbol.prefHeight(-1);
+				symbol.resizeRelocate(geometry.px[i] - w / 2, geometry.py[i] - h / 2, w, h);
+			}
+		}
+	}
+	
+	/**
+	 * draw the series lines for one tile of a bitmap export at a resolution higher than the screen,
+	 * the canvas then covers only the tile, call with null to return to normal display
+	 * @param tile area of the tile in coordinates of the plot content
+	 * @param scale pixels of the export per pixel of the screen
+	 */
+	void drawExportTile(Rectangle2D tile, double scale) {
+		isExporting = tile != null;
+		seriesCanvas.getTransforms().clear();
+		seriesCanvas.relocate(0, 0);
+		if (viewport == null) return;
+		if (tile == null) {
+			seriesCanvas.setWidth(viewport.width);
+			seriesCanvas.setHeight(viewport.height);
+			drawSeries();
+			return;
+		}
+		
+		Viewport vp = viewport;
+		double x0 = Math.max(0, tile.getMinX()), y0 = Math.max(0, tile.getMinY());
+		double x1 = Math.min(vp.width, tile.getMaxX()), y1 = Math.min(vp.height, tile.getMaxY());
+		seriesCanvas.setWidth(Math.max(0, Math.ceil((x1 - x0) * scale)));
+		seriesCanvas.setHeight(Math.max(0, Math.ceil((y1 - y0) * scale)));
+		if (x1 <= x0 || y1 <= y0) return;
+		seriesCanvas.relocate(x0, y0);
+		seriesCanvas.getTransforms().add(new Scale(1 / scale, 1 / scale));
+		
+		GraphicsContext gc = seriesCanvas.getGraphicsContext2D();
+		gc.clearRect(0, 0, seriesCanvas.getWidth(), seriesCanvas.getHeight());
+		gc.setLineJoin(StrokeLineJoin.BEVEL);
+		for (Series <Number, Number> series : getData()) {
+			Shape seriesShape = (Shape) series.getNode();
+			if (seriesShape == null || seriesShape.isVisible() == false || seriesShape.getStroke() == null) continue;
+			SeriesGeometry geometry = bufferMap.get(series).geometry;
+			if (geometry != null && geometry.density != null) {			//density map at screen resolution
+				gc.drawImage(geometry.densityImage(), x0, y0, x1 - x0, y1 - y0, 0, 0, seriesCanvas.getWidth(), seriesCanvas.getHeight());
+				continue;
+			}
+			gc.setStroke(seriesShape.getStroke());
+			gc.setLineWidth(seriesShape.getStrokeWidth() * scale);
+			strokeValues(gc, getBuffer(series), vp, x0, x1, x0, y0, scale, 1.0);
+		}
+	}
+	
+	/**
+	 * stroke values of a series between the display positions x0 and x1 in chunks,
+	 * the whole series unless x is ascending, positions are scaled and taken relative to an origin
+	 * @param bucket width of buckets the line of ascending series is reduced to in pixel of the canvas
+	 */
+	private void strokeValues(GraphicsContext gc, SeriesBuffer series, Viewport vp, double x0, double x1, double originX, double originY, double scale, double bucket) {
+		if (chunkX == null) {
+			chunkX = new double[STROKE_CHUNK];
+			chunkY = new double[STROKE_CHUNK];
+			envelopeX = new double[4 * STROKE_CHUNK];
+			envelopeY = new double[4 * STROKE_CHUNK];
+		}
+		SeriesBuffer buffer = series.within(vp.toValueX(x0), vp.toValueX(x1), bucket / (scale * Math.abs(vp.xScale)));
+		int from = 0, to = buffer.size;
+		boolean isAscending = buffer.isAscending && vp.xScale > 0;
+		if (isAscending) {
+			from = Math.max(0, Kernels.search(buffer.x, to, vp.toValueX(x0)) - 1);
+			to = Math.min(to, Kernels.search(buffer.x, to, vp.toValueX(x1)) + 1);
+		}
+		for (int i = from; i < to - 1; i += STROKE_CHUNK - 1) {			//chunks overlap by one point
+			int count = Math.min(STROKE_CHUNK, to - i);
+			System.arraycopy(buffer.x, i, chunkX, 0, count);
+			System.arraycopy(buffer.y, i, chunkY, 0, count);
+			Kernels.transform(chunkX, chunkX, count, vp.xLo, vp.xScale * scale, (vp.xOffset - originX) * scale);
+			Kernels.transform(chunkY, chunkY, count, vp.yLo, vp.yScale * scale, (vp.yOffset - originY) * scale);
+			if (isAscending) gc.strokePolyline(envelopeX, envelopeY, Kernels.envelope(chunkX, chunkY, 0, count, bucket, envelopeX, envelopeY));
+			else gc.strokePolyline(chunkX, chunkY, count);
+		}
+	}
+	
+	Node getLegendNode() {
+		return getLegend();
+	}
+	
 	@Override
 	protected void updateLegend() {
 //		System.out.println("updateLegend");
@@ -0,0 +1,110 @@
+package plotter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * compare the vector api kernels with the scalar loops and with the per point computation done through Number objects
+ * before measuring, the scalar transform is checked bit for bit against the computation of ValueAxis
+ * and the vector kernels bit for bit against the scalar loops, the data contains NaN, -0.0 and 0.0
+ * start with --add-modules jdk.incubator.vector to include the vector kernels,
+ * run with the number of elements as argument, default is 4 million
+ */
+public class KernelBenchmark {
+
+	private static final int ROUNDS = 20;
+	private static double sink;
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+		Random random = new Random(1);
+		double[] values = new double[count], x = new double[count], dst = new double[count];
+		double v = 0;
+		for (int i = 0; i < count; i++) {
+			v += random.nextGaussian();
+			values[i] = v;
+			x[i] = i;
+		}
+		for (int i = 0; i < count; i += 1009) values[i] = Double.NaN;
+		for (int i = 7; i < count; i += 1013) values[i] = i % 2 == 0 ? 0.0 : -0.0;
+		List <Number> boxed = new ArrayList <> (count);
+		for (double d : values) boxed.add(d);
+		double lo = -1000, scale = 0.0123, offset = 512, xLo = count * 0.25, xHi = count * 0.75;
+
+		Kernels.scalarTransform(values, dst, count, lo, scale, offset);
+		for (int i = 0; i < count; i++) {
+			same(dst[i], offset + (boxed.get(i).doubleValue() - lo) * scale, "scalar transform differs from ValueAxis at index " + i);
+		}
+		checkScalarExtent(values, count);
+		if (Kernels.IS_VECTORIZED) {
+			double[] vectorDst = new double[count];
+			for (int n : new int[] {0, 1, 3, 63, 64, 65, 1000, count}) {					//tails of any length
+				int c = Math.min(n, count);
+				Kernels.scalarTransform(values, dst, c, lo, scale, offset);
+				VectorKernels.transform(values, vectorDst, c, lo, scale, offset);
+				for (int i = 0; i < c; i++) same(vectorDst[i], dst[i], "vector transform differs at index " + i);
+				sameExtent(VectorKernels.extent(values, c), Kernels.scalarExtent(values, c), "vector extent differs for " + c + " values");
+				sameExtent(VectorKernels.extentWithin(x, values, c, xLo, xHi), Kernels.scalarExtentWithin(x, values, c, xLo, xHi),
+						"vector extent within differs for " + c + " values");
+			}
+			double[] zeros = new double[100];
+			for (int i = 0; i < zeros.length; i++) zeros[i] = i % 3 == 0 ? Double.NaN : i % 3 == 1 ? -0.0 : 0.0;
+			sameExtent(VectorKernels.extent(zeros, zeros.length), new double[] {0.0, 0.0}, "vector extent of zeros is not 0.0");
+		}
+
+		System.out.println(String.format("%,d elements, average of %d rounds, vector api %s", count, ROUNDS,
+				Kernels.IS_VECTORIZED ? "used" : "not present, start with --add-modules jdk.incubator.vector"));
+		measure("transform, boxed List<Number>", () -> {
+			for (int i = 0; i < count; i++) dst[i] = offset + (boxed.get(i).doubleValue() - lo) * scale;
+		});
+		measure("transform, scalar", () -> Kernels.scalarTransform(values, dst, count, lo, scale, offset));
+		if (Kernels.IS_VECTORIZED) measure("transform, vector", () -> VectorKernels.transform(values, dst, count, lo, scale, offset));
+		measure("extent, scalar", () -> sink += Kernels.scalarExtent(values, count)[0]);
+		if (Kernels.IS_VECTORIZED) measure("extent, vector", () -> sink += VectorKernels.extent(values, count)[0]);
+		measure("extent within, scalar", () -> sink += Kernels.scalarExtentWithin(x, values, count, xLo, xHi)[0]);
+		if (Kernels.IS_VECTORIZED) measure("extent within, vector", () -> sink += VectorKernels.extentWithin(x, values, count, xLo, xHi)[0]);
+		double[] px = new double[count], outX = new double[4 * 2000], outY = new double[4 * 2000];
+		Kernels.transform(DataPlotter.spacing(0, 1999, count).toArray(), px, count, 0, 1, 0);
+		Kernels.transform(values, dst, count, lo, scale, offset);
+		measure("envelope, 2000 columns", () -> sink += Kernels.envelope(px, dst, 0, count, 1.0, outX, outY));
+	}
+
+	/**
+	 * the extent must ignore NaN and match the first and last value of the sorted values without NaN,
+	 * zero results must be 0.0
+	 */
+	private static void checkScalarExtent(double[] values, int count) {
+		double[] sorted = Arrays.copyOf(values, count);
+		Arrays.sort(sorted);											//NaN sorts last
+		int end = count;
+		while (end > 0 && Double.isNaN(sorted[end - 1])) end--;
+		double[] ext = Kernels.scalarExtent(values, count);
+		if (Double.isNaN(ext[0]) || Double.isNaN(ext[1])) throw new RuntimeException("extent is NaN");
+		if (ext[0] != sorted[0] || ext[1] != sorted[end - 1]) throw new RuntimeException("extent differs");
+
+		ext = Kernels.scalarExtent(new double[] {Double.NaN, -0.0, 0.0, Double.NaN, -0.0}, 5);
+		same(ext[0], 0.0, "minimum of zeros is not 0.0");
+		same(ext[1], 0.0, "maximum of zeros is not 0.0");
+		ext = Kernels.scalarExtent(new double[] {Double.NaN, Double.NaN, Double.NaN}, 3);
+		if ((ext[0] > ext[1]) == false) throw new RuntimeException("extent of NaN only is " + Arrays.toString(ext));
+	}
+
+	private static void sameExtent(double[] a, double[] b, String msg) {
+		same(a[0], b[0], msg);
+		same(a[1], b[1], msg);
+	}
+
+	//bit for bit, NaN of any payload counts as the same
+	private static void same(double a, double b, String msg) {
+		if (Double.doubleToLongBits(a) != Double.doubleToLongBits(b)) throw new RuntimeException(msg + ", " + a + " != " + b);
+	}
+
+	private static void measure(String name, Runnable task) {
+		for (int i = 0; i < ROUNDS; i++) task.run();		//warm up
+		long t = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) task.run();
+		System.out.println(String.format("%-32s %8.3f ms", name, (System.nanoTime() - t) / 1e6 / ROUNDS));
+	}
+}
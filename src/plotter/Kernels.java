@@ -0,0 +1,160 @@
+package plotter;
+
+/**
+ * unboxed loops over double arrays used for plotting
+ * transform and extents run on {@link VectorKernels} when the vector api is present and the arrays are long enough,
+ * otherwise the plain scalar loops here are used, both give identical results
+ */
+final class Kernels {
+
+	private static final int VECTOR_MIN = 64;			//shorter arrays are not worth the setup of vectors
+	/** true when the vector api is used, start with -Dplotter.scalar=true to use the scalar loops only */
+	static final boolean IS_VECTORIZED = isVectorApiPresent();
+
+	private Kernels() {}
+
+	//loading VectorKernels fails when the module jdk.incubator.vector is not resolved
+	private static boolean isVectorApiPresent() {
+		if (Boolean.getBoolean("plotter.scalar")) return false;
+		try {
+			Class.forName("plotter.VectorKernels");
+			return true;
+
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * transform values to display positions like ValueAxis does, dst[i] = offset + (src[i] - lo) * scale
+	 * @param src values in data units
+	 * @param dst display positions, may be the same array as src
+	 * @param count number of values
+	 */
+	static void transform(double[] src, double[] dst, int count, double lo, double scale, double offset) {
+		if (IS_VECTORIZED && count >= VECTOR_MIN) VectorKernels.transform(src, dst, count, lo, scale, offset);
+		else scalarTransform(src, dst, count, lo, scale, offset);
+	}
+
+	static void scalarTransform(double[] src, double[] dst, int count, double lo, double scale, double offset) {
+		for (int i = 0; i < count; i++) {
+			dst[i] = offset + (src[i] - lo) * scale;
+		}
+	}
+
+	/**
+	 * smallest and largest value, NaN is ignored, a zero result is always 0.0
+	 * @return array {min, max}, min > max when there is no value
+	 */
+	static double[] extent(double[] values, int count) {
+		return IS_VECTORIZED && count >= VECTOR_MIN ? VectorKernels.extent(values, count) : scalarExtent(values, count);
+	}
+
+	static double[] scalarExtent(double[] values, int count) {
+		double min0 = Double.POSITIVE_INFINITY, min1 = min0, max0 = Double.NEGATIVE_INFINITY, max1 = max0;
+		int i = 0;
+		for (; i < count - 1; i += 2) {				//two independent lanes
+			double v0 = values[i], v1 = values[i + 1];
+			min0 = v0 < min0 ? v0 : min0;
+			min1 = v1 < min1 ? v1 : min1;
+			max0 = v0 > max0 ? v0 : max0;
+			max1 = v1 > max1 ? v1 : max1;
+		}
+		if (i < count) {
+			double v = values[i];
+			min0 = v < min0 ? v : min0;
+			max0 = v > max0 ? v : max0;
+		}
+		return new double[] {Math.min(min0, min1) + 0.0, Math.max(max0, max1) + 0.0};		//adding 0.0 turns -0.0 into 0.0
+	}
+
+	/**
+	 * smallest and largest value of y where x is within [lo, hi], NaN is ignored, a zero result is always 0.0
+	 * @return array {min, max}, min > max when there is no value
+	 */
+	static double[] extentWithin(double[] x, double[] y, int count, double lo, double hi) {
+		return IS_VECTORIZED && count >= VECTOR_MIN ? VectorKernels.extentWithin(x, y, count, lo, hi) : scalarExtentWithin(x, y, count, lo, hi);
+	}
+
+	static double[] scalarExtentWithin(double[] x, double[] y, int count, double lo, double hi) {
+		double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < count; i++) {
+			double xv = x[i], yv = y[i];
+			boolean isInside = xv >= lo && xv <= hi;
+			min = isInside && yv < min ? yv : min;
+			max = isInside && yv > max ? yv : max;
+		}
+		return new double[] {min + 0.0, max + 0.0};
+	}
+
+	/**
+	 * reduce a line with ascending display x to at most four points per bucket of pixel columns:
+	 * first, minimum, maximum and last point of each bucket, in order of appearance
+	 * with buckets of one pixel the drawn line looks the same as drawing all points
+	 * @param px display x, ascending
+	 * @param py display y
+	 * @param from first point
+	 * @param to end of points, exclusive
+	 * @param bucket width of buckets in pixel
+	 * @param outX output x, length at least 4 * count of buckets touched
+	 * @param outY output y
+	 * @return number of points written
+	 */
+	static int envelope(double[] px, double[] py, int from, int to, double bucket, double[] outX, double[] outY) {
+		int n = 0, i = from;
+		while (i < to) {
+			double next = (Math.floor(px[i] / bucket) + 1.0) * bucket;
+			int first = i, iMin = i, iMax = i;
+			double min = py[i], max = py[i];
+			i++;
+			while (i < to && px[i] < next) {
+				double v = py[i];
+				if (v < min) {
+					min = v;
+					iMin = i;
+				}
+				if (v > max) {
+					max = v;
+					iMax = i;
+				}
+				i++;
+			}
+			int last = i - 1;
+			n = put(px, py, first, outX, outY, n);
+			if (iMin != first && iMin != last && iMin < iMax) n = put(px, py, iMin, outX, outY, n);
+			if (iMax != first && iMax != last) n = put(px, py, iMax, outX, outY, n);
+			if (iMin != first && iMin != last && iMin > iMax) n = put(px, py, iMin, outX, outY, n);
+			if (last != first) n = put(px, py, last, outX, outY, n);
+		}
+		return n;
+	}
+
+	/**
+	 * true when values are ascending, NaN counts as not ascending
+	 */
+	static boolean isAscending(double[] values, int count) {
+		for (int i = 1; i < count; i++) {
+			if ((values[i] >= values[i - 1]) == false) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * first index with value not less than key, values must be ascending
+	 */
+	static int search(double[] values, int count, double key) {
+		int lo = 0, hi = count;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (values[mid] < key) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+
+	private static int put(double[] px, double[] py, int idx, double[] outX, double[] outY, int n) {
+		outX[n] = px[idx];
+		outY[n] = py[idx];
+		return n + 1;
+	}
+}
@@ -0,0 +1,132 @@
+package plotter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * writes an rgb png image strip by strip, the image never has to be held in memory as a whole
+ * rows of each strip are filtered and compressed in blocks in parallel, each block ends on a byte boundary
+ * so the compressed blocks can be concatenated to a single zlib stream
+ */
+class PngTileWriter {
+
+	private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+	private static final int BLOCK_ROWS = 32;
+	private static final int IDAT_SIZE = 1 << 16;
+
+	private final DataOutputStream out;
+	private final int width, height;
+	private final Adler32 adler = new Adler32();
+	private int rowsWritten;
+
+	PngTileWriter(OutputStream out, int width, int height) throws IOException {
+		this.out = new DataOutputStream(out);
+		this.width = width;
+		this.height = height;
+		this.out.write(SIGNATURE);
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(header);
+		dos.writeInt(width);
+		dos.writeInt(height);
+		dos.writeByte(8);		//bit depth
+		dos.writeByte(2);		//color type rgb
+		dos.writeByte(0);		//compression
+		dos.writeByte(0);		//filter
+		dos.writeByte(0);		//no interlace
+		writeChunk("IHDR", header.toByteArray(), 0, header.size());
+		writeChunk("IDAT", new byte[] {0x78, (byte) 0x9c}, 0, 2);		//zlib header
+	}
+
+	/**
+	 * add the next rows of the image
+	 * @param argb pixels in argb format, scanline stride is the width of the image
+	 * @param rows number of rows
+	 */
+	void writeRows(int[] argb, int rows) throws IOException {
+		if (rowsWritten + rows > height) throw new RuntimeException("too many rows for image height " + height);
+		int blocks = (rows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+		byte[][] filtered = new byte[blocks][];
+		byte[][] compressed = IntStream.range(0, blocks).parallel().mapToObj(b -> {
+			int r0 = b * BLOCK_ROWS, r1 = Math.min(rows, r0 + BLOCK_ROWS);
+			filtered[b] = filter(argb, r0, r1);
+			return deflate(filtered[b], Deflater.SYNC_FLUSH);
+		}).toArray(byte[][]::new);
+		for (int b = 0; b < blocks; b++) {
+			adler.update(filtered[b]);
+			for (int i = 0; i < compressed[b].length; i += IDAT_SIZE) {
+				writeChunk("IDAT", compressed[b], i, Math.min(IDAT_SIZE, compressed[b].length - i));
+			}
+		}
+		rowsWritten += rows;
+	}
+
+	/**
+	 * end the image, all rows must have been written
+	 */
+	void finish() throws IOException {
+		if (rowsWritten != height) throw new RuntimeException("image incomplete, rows written " + rowsWritten + " of " + height);
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		deflater.finish();
+		byte[] buf = new byte[16];
+		int n = deflater.deflate(buf);
+		deflater.end();
+		ByteArrayOutputStream tail = new ByteArrayOutputStream();
+		tail.write(buf, 0, n);									//empty final block
+		long sum = adler.getValue();
+		tail.write(new byte[] {(byte) (sum >>> 24), (byte) (sum >>> 16), (byte) (sum >>> 8), (byte) sum});
+		writeChunk("IDAT", tail.toByteArray(), 0, tail.size());
+		writeChunk("IEND", new byte[0], 0, 0);
+		out.flush();
+	}
+
+	//rows with filter type 'sub', each row is independent of the others
+	private byte[] filter(int[] argb, int r0, int r1) {
+		int rowLength = 1 + 3 * width;
+		byte[] bytes = new byte[(r1 - r0) * rowLength];
+		for (int r = r0; r < r1; r++) {
+			int pos = (r - r0) * rowLength, idx = r * width;
+			bytes[pos++] = 1;
+			int prev = 0;
+			for (int c = 0; c < width; c++) {
+				int px = argb[idx + c];
+				bytes[pos++] = (byte) ((px >> 16) - (prev >> 16));
+				bytes[pos++] = (byte) ((px >> 8) - (prev >> 8));
+				bytes[pos++] = (byte) (px - prev);
+				prev = px;
+			}
+		}
+		return bytes;
+	}
+
+	private byte[] deflate(byte[] input, int flush) {
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		deflater.setInput(input);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(input.length / 4 + 64);
+		byte[] buf = new byte[IDAT_SIZE];
+		int n;
+		do {
+			n = deflater.deflate(buf, 0, buf.length, flush);
+			bos.write(buf, 0, n);
+		} while (n == buf.length);
+		deflater.end();
+		return bos.toByteArray();
+	}
+
+	private void writeChunk(String type, byte[] data, int offset, int length) throws IOException {
+		byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data, offset, length);
+		out.writeInt(length);
+		out.write(typeBytes);
+		out.write(data, offset, length);
+		out.writeInt((int) crc.getValue());
+	}
+}
@@ -0,0 +1,82 @@
+package plotter;
+
+import javafx.animation.PauseTransition;
+import javafx.util.Duration;
+
+/**
+ * decides the quality series are drawn with
+ * while the user zooms or pans, lines are reduced to coarse buckets and symbols and minor ticks are left out,
+ * the width of the buckets adapts so that preparing a frame stays within the time budget
+ * when input has been idle for a moment, quality is refined in stages, any input cancels refinement
+ */
+class RenderScheduler {
+
+	enum Quality {COARSE, LINES, FULL}
+
+	private static final double FRAME_BUDGET_NANOS = 12e6;
+	private static final double MIN_BUCKET = 2.0, MAX_BUCKET = 32.0;		//width of buckets in pixel while coarse
+	private static final Duration IDLE_DELAY = Duration.millis(150);
+	private static final Duration STAGE_DELAY = Duration.millis(30);
+
+	private final Runnable qualityChanged;
+	private final PauseTransition idleTimer = new PauseTransition(IDLE_DELAY);
+	private final PauseTransition stageTimer = new PauseTransition(STAGE_DELAY);
+	private Quality quality = Quality.FULL;
+	private double bucket = MIN_BUCKET;
+	private long frameStart;
+
+	/**
+	 * @param qualityChanged called on the fx thread whenever quality changes, must redraw the chart
+	 */
+	RenderScheduler(Runnable qualityChanged) {
+		this.qualityChanged = qualityChanged;
+		idleTimer.setOnFinished(event -> setQuality(Quality.LINES));
+		stageTimer.setOnFinished(event -> setQuality(Quality.FULL));
+	}
+
+	/**
+	 * user input, switches to coarse drawing and restarts waiting for idle input
+	 */
+	void interaction() {
+		stageTimer.stop();
+		idleTimer.playFromStart();
+		if (quality != Quality.COARSE) setQuality(Quality.COARSE);
+	}
+
+	/**
+	 * preparation of a new frame has started
+	 */
+	void frameStarted() {
+		frameStart = System.nanoTime();
+	}
+
+	/**
+	 * all series of the current frame have been drawn
+	 */
+	void frameFinished() {
+		if (quality == Quality.COARSE) {
+			double nanos = System.nanoTime() - frameStart;
+			if (nanos > FRAME_BUDGET_NANOS) bucket = Math.min(MAX_BUCKET, bucket * 2);
+			else if (nanos < FRAME_BUDGET_NANOS / 4) bucket = Math.max(MIN_BUCKET, bucket / 2);
+
+		} else if (quality == Quality.LINES && idleTimer.getStatus() != PauseTransition.Status.RUNNING) {
+			stageTimer.playFromStart();
+		}
+	}
+
+	Quality getQuality() {
+		return quality;
+	}
+
+	/**
+	 * width of buckets for reducing lines in pixel
+	 */
+	double getBucket() {
+		return quality == Quality.COARSE ? bucket : 1.0;
+	}
+
+	private void setQuality(Quality quality) {
+		this.quality = quality;
+		qualityChanged.run();
+	}
+}
@@ -0,0 +1,153 @@
+package plotter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javafx.scene.chart.XYChart.Data;
+
+/**
+ * primitive copy of the values of one series, geometry is prepared from here without touching Data objects
+ * values a worker may read are never overwritten, workers get the arrays, size and order at the time of the request,
+ * appending writes behind the size, updating writes to a second pair of arrays and swaps them,
+ * the second pair is only reused when no worker reads it any more, so steady updating allocates no new arrays
+ * geometry objects cycle between drawn, pending and spare, so steady redrawing allocates no new arrays
+ */
+class SeriesBuffer {
+
+	double[] x = new double[0], y = new double[0];
+	int size;
+	int version;								//incremented on every change of values
+	boolean isDirty = true;						//values must be copied again from the series
+	boolean isAscending = true;					//x values are sorted ascending
+	boolean isDetached;							//values are held here only, the series has no Data objects until some are added again
+	boolean isDensity;							//drawn as density map instead of line
+	AtomicInteger readers = new AtomicInteger();	//workers reading x and y
+	SeriesHistory history;						//values are held compressed here instead of in x and y
+	SeriesGeometry geometry;					//geometry currently drawn
+	final AtomicReference <SeriesGeometry> pending = new AtomicReference <> ();		//finished by worker, not yet swapped in
+	final AtomicReference <SeriesGeometry> spare = new AtomicReference <> ();		//no longer drawn, to be filled again
+	long requestedGeneration = -1;
+	int requestedVersion = -1;
+	boolean isComputing;						//requested geometry has not been swapped in yet
+	private double[] spareX = new double[0], spareY = new double[0];		//former values, written by the next update
+	private AtomicInteger spareReaders = new AtomicInteger();
+	
+	void rebuild(List <Data <Number, Number>> dataList) {
+		size = dataList.size();
+		double[] xNew = new double[size], yNew = new double[size];
+		for (int i = 0; i < size; i++) {
+			Data <Number, Number> data = dataList.get(i);
+			xNew[i] = data.getXValue().doubleValue();
+			yNew[i] = data.getYValue().doubleValue();
+		}
+		x = xNew;
+		y = yNew;
+		readers = new AtomicInteger();
+		isAscending = Kernels.isAscending(xNew, size);
+		isDetached = false;
+		history = null;
+		isDirty = false;
+		version++;
+	}
+	
+	void setValues(double[] xValues, double[] yValues) {
+		size = xValues.length;
+		x = Arrays.copyOf(xValues, size);
+		y = Arrays.copyOf(yValues, size);
+		readers = new AtomicInteger();
+		isAscending = Kernels.isAscending(x, size);
+		isDetached = true;
+		isDirty = false;
+		version++;
+	}
+	
+	/**
+	 * replace all values, the number of values is unchanged,
+	 * the values are written to the second pair of arrays, which is reallocated only while workers still read it
+	 * @param xValues new x values or null to keep them
+	 * @param yValues new y values
+	 */
+	void update(double[] xValues, double[] yValues) {
+		if (history != null) throw new RuntimeException("values of compressed series can only be appended");
+		if (yValues.length != size || (xValues != null && xValues.length != size)) {
+			throw new RuntimeException("number of values must be " + size);
+		}
+		if (spareReaders.get() != 0 || spareX.length < size) {
+			spareX = new double[x.length];
+			spareY = new double[y.length];
+			spareReaders = new AtomicInteger();
+		}
+		System.arraycopy(xValues != null ? xValues : x, 0, spareX, 0, size);
+		System.arraycopy(yValues, 0, spareY, 0, size);
+		double[] xOld = x, yOld = y;
+		AtomicInteger readersOld = readers;
+		x = spareX;
+		y = spareY;
+		readers = spareReaders;
+		spareX = xOld;
+		spareY = yOld;
+		spareReaders = readersOld;
+		if (xValues != null) isAscending = Kernels.isAscending(x, size);
+		isDetached = true;
+		isDirty = false;
+		version++;
+	}
+	
+	/**
+	 * geometry object to be filled by a worker
+	 */
+	SeriesGeometry takeSpare() {
+		SeriesGeometry geometry = spare.getAndSet(null);
+		return geometry != null ? geometry : new SeriesGeometry();
+	}
+	
+	/**
+	 * plain values with x from lo to hi and their neighbours, decoded from the history for compressed series,
+	 * plain series return all of their values
+	 * @param minWidth blocks of the history narrower than this in x are reduced to their extremes
+	 */
+	SeriesBuffer within(double lo, double hi, double minWidth) {
+		return history == null ? this : history.snapshot().decode(lo, hi, minWidth);
+	}
+	
+	void append(double xVal, double yVal) {
+		if (history != null) {
+			history.append(xVal, yVal);
+			version++;
+			return;
+		}
+		if (size == x.length) {
+			int capacity = Math.max(16, size + size / 2);
+			x = Arrays.copyOf(x, capacity);
+			y = Arrays.copyOf(y, capacity);
+		}
+		isAscending &= size == 0 || xVal >= x[size - 1];
+		x[size] = xVal;
+		y[size] = yVal;
+		size++;
+		version++;
+	}
+	
+	/**
+	 * approximate memory held by values, history and geometry in bytes
+	 */
+	long byteSize() {
+		long bytes = 8L * (x.length + y.length + spareX.length + spareY.length);
+		if (history != null) bytes += history.byteSize();
+		for (SeriesGeometry g : Arrays.asList(geometry, pending.get(), spare.get())) {
+			if (g != null) bytes += g.byteSize();
+		}
+		return bytes;
+	}
+	
+	/**
+	 * geometry of this generation has been requested for the current values or is still being prepared,
+	 * a newer version is only requested after the former result has been swapped in,
+	 * so results are drawn even when values change faster than workers finish
+	 */
+	boolean isRequested(long generation) {
+		return requestedGeneration == generation && (requestedVersion == version || isComputing);
+	}
+}
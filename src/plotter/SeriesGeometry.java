@@ -0,0 +1,84 @@
+package plotter;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * display coordinates of one series for one viewport, prepared on a worker thread
+ * px and py hold every point for placing symbols,
+ * the line may be reduced to the envelope of buckets of pixel columns when x is ascending
+ * objects are recycled by the SeriesBuffer, arrays are only reallocated when they become too small
+ */
+class SeriesGeometry {
+
+	private static final double[] EMPTY = new double[0];
+
+	double[] px = EMPTY, py = EMPTY, lineX = EMPTY, lineY = EMPTY;
+	int count, lineCount;
+	DensityMap density;
+	long generation;
+	int version;
+	private double[] envelopeX = EMPTY, envelopeY = EMPTY;
+	private WritableImage image;			//density drawn as image, only used on the fx thread
+	private DensityMap imageDensity;		//density the image shows
+
+	long byteSize() {
+		return 8L * (px.length + py.length + envelopeX.length + envelopeY.length) + (density != null ? 4L * density.argb.length : 0)
+				+ (image != null ? 4L * (long) image.getWidth() * (long) image.getHeight() : 0);
+	}
+
+	/**
+	 * the density map as image, written only when the map changed, reallocated only when its size changed
+	 * call on the fx thread
+	 */
+	Image densityImage() {
+		if (imageDensity != density) {
+			if (image == null || image.getWidth() != density.width || image.getHeight() != density.height) {
+				image = new WritableImage(density.width, density.height);
+			}
+			image.getPixelWriter().setPixels(0, 0, density.width, density.height, PixelFormat.getIntArgbInstance(), density.argb, 0, density.width);
+			imageDensity = density;
+		}
+		return image;
+	}
+
+	void computeDensity(double[] x, double[] y, int count, boolean isAscending, Viewport vp, long generation, int version) {
+		this.density = DensityMap.compute(x, y, count, isAscending, vp, density != null ? density.argb : null);		//not drawn while computed
+		this.count = this.lineCount = 0;
+		this.generation = generation;
+		this.version = version;
+	}
+
+	void compute(double[] x, double[] y, int count, boolean isAscending, double bucket, Viewport vp, long generation, int version) {
+		if (px.length < count) {
+			px = new double[count];
+			py = new double[count];
+		}
+		Kernels.transform(x, px, count, vp.xLo, vp.xScale, vp.xOffset);
+		Kernels.transform(y, py, count, vp.yLo, vp.yScale, vp.yOffset);
+		if (isAscending && vp.xScale > 0 && count > 4 * vp.width / bucket) {
+			int from = Math.max(0, Kernels.search(px, count, 0.0) - 1);
+			int to = Math.min(count, Kernels.search(px, count, vp.width) + 1);
+			int capacity = Math.min(to - from, 4 * ((int) (vp.width / bucket) + 3));
+			if (envelopeX.length < capacity) {
+				envelopeX = new double[capacity];
+				envelopeY = new double[capacity];
+			}
+			lineX = envelopeX;
+			lineY = envelopeY;
+			lineCount = Kernels.envelope(px, py, from, to, bucket, lineX, lineY);
+
+		} else {
+			lineX = px;
+			lineY = py;
+			lineCount = count;
+		}
+		this.density = null;
+		this.image = null;
+		this.imageDensity = null;
+		this.count = count;
+		this.generation = generation;
+		this.version = version;
+	}
+}
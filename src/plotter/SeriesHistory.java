@@ -0,0 +1,432 @@
+package plotter;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * compressed storage of a long running series with ascending x, values are only appended
+ * values are collected in an open tail and encoded in blocks of BLOCK_SIZE when the tail is full,
+ * x as delta of delta of its bit pattern, y in whichever of four modes takes the least space for the block:
+ * xor with the previous value, xor with the value extrapolated from the two previous ones,
+ * or for values with few decimals, the scaled integers as delta or delta of delta, all lossless
+ * each block keeps a summary of its range of x and extent of y, so only blocks within the visible range are decoded,
+ * blocks narrower than a bucket of pixels are not decoded at all but drawn from their summary
+ * blocks are immutable and published through a volatile count, so workers can decode while values are appended
+ */
+class SeriesHistory {
+
+	static final int BLOCK_SIZE = 1024;
+	private static final int PARALLEL_BLOCKS = 8;			//decode in parallel from this number of blocks
+
+	private volatile Block[] blocks = new Block[16];
+	private volatile int blockCount;
+	private final double[] tailX = new double[BLOCK_SIZE], tailY = new double[BLOCK_SIZE];
+	private int tailSize;
+
+	void append(double x, double y) {
+		double last = tailSize > 0 ? tailX[tailSize - 1] : blockCount > 0 ? blocks[blockCount - 1].xLast : Double.NEGATIVE_INFINITY;
+		if ((x >= last) == false) throw new RuntimeException("x values of compressed series must be ascending, " + x + " after " + last);
+		tailX[tailSize] = x;
+		tailY[tailSize] = y;
+		tailSize++;
+		if (tailSize == BLOCK_SIZE) {
+			if (blockCount == blocks.length) blocks = Arrays.copyOf(blocks, blockCount * 2);
+			blocks[blockCount] = Block.encode(tailX, tailY, tailSize);
+			blockCount++;
+			tailSize = 0;
+		}
+	}
+
+	long size() {
+		return (long) blockCount * BLOCK_SIZE + tailSize;
+	}
+
+	/**
+	 * approximate memory held by the history in bytes
+	 */
+	long byteSize() {
+		long bytes = 16L * tailX.length + 8L * blocks.length + 3 * 16;		//tail x and y, references to blocks, array headers
+		for (int i = 0; i < blockCount; i++) bytes += blocks[i].byteSize();
+		return bytes;
+	}
+
+	/**
+	 * smallest and largest value from summaries of blocks and the tail
+	 * @return array {min, max}
+	 */
+	double[] extent(boolean isAxisX) {
+		double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+		if (isAxisX) {
+			if (blockCount > 0) min = blocks[0].xFirst;
+			else if (tailSize > 0) min = tailX[0];
+			if (tailSize > 0) max = tailX[tailSize - 1];
+			else if (blockCount > 0) max = blocks[blockCount - 1].xLast;
+
+		} else {
+			for (int i = 0; i < blockCount; i++) {
+				min = Math.min(min, blocks[i].yMin);
+				max = Math.max(max, blocks[i].yMax);
+			}
+			double[] ext = Kernels.extent(tailY, tailSize);
+			min = Math.min(min, ext[0]);
+			max = Math.max(max, ext[1]);
+		}
+		return new double[] {min, max};
+	}
+
+	/**
+	 * state of the history at this moment, to be decoded on any thread, must be taken on the thread that appends
+	 */
+	Snapshot snapshot() {
+		return new Snapshot(blocks, blockCount, Arrays.copyOf(tailX, tailSize), Arrays.copyOf(tailY, tailSize));
+	}
+
+	static class Snapshot {
+
+		private final Block[] blocks;
+		private final int blockCount;
+		private final double[] tailX, tailY;
+
+		private Snapshot(Block[] blocks, int blockCount, double[] tailX, double[] tailY) {
+			this.blocks = blocks;
+			this.blockCount = blockCount;
+			this.tailX = tailX;
+			this.tailY = tailY;
+		}
+
+		/**
+		 * decode blocks overlapping the range of x from lo to hi and one more block on each side
+		 * @param minWidth blocks spanning less than this in x are replaced by four points of their summary
+		 * @return plain values, ascending in x
+		 */
+		SeriesBuffer decode(double lo, double hi, double minWidth) {
+			if (lo > hi) return decode(hi, lo, minWidth);
+			int first = Math.max(0, firstBlockEndingFrom(lo) - 1);
+			int last = Math.min(blockCount - 1, lastBlockStartingUpTo(hi) + 1);
+			if (first > last) first = last = -1;		//no blocks at all
+
+			int blocksUsed = last - first + (first < 0 ? 0 : 1);
+			boolean hasTail = tailX.length > 0 && (blockCount == 0 || last == blockCount - 1);
+			int[] offsets = new int[blocksUsed + 1];
+			boolean[] isSummary = new boolean[blocksUsed];
+			for (int i = 0; i < blocksUsed; i++) {
+				Block block = blocks[first + i];
+				isSummary[i] = block.xLast - block.xFirst < minWidth;
+				offsets[i + 1] = offsets[i] + (isSummary[i] ? 4 : block.count);
+			}
+			int size = offsets[blocksUsed] + (hasTail ? tailX.length : 0);
+			double[] x = new double[size], y = new double[size];
+
+			int from = first;
+			IntStream indices = IntStream.range(0, blocksUsed);
+			if (blocksUsed >= PARALLEL_BLOCKS) indices = indices.parallel();
+			indices.forEach(i -> {
+				Block block = blocks[from + i];
+				if (isSummary[i]) block.summarize(x, y, offsets[i]);
+				else block.decode(x, y, offsets[i]);
+			});
+			if (hasTail) {
+				System.arraycopy(tailX, 0, x, offsets[blocksUsed], tailX.length);
+				System.arraycopy(tailY, 0, y, offsets[blocksUsed], tailX.length);
+			}
+
+			SeriesBuffer values = new SeriesBuffer();
+			values.x = x;
+			values.y = y;
+			values.size = size;
+			values.isDetached = true;
+			values.isDirty = false;
+			return values;
+		}
+
+		//index of first block with last x not below value, blockCount if none
+		private int firstBlockEndingFrom(double value) {
+			int lo = 0, hi = blockCount;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (blocks[mid].xLast < value) lo = mid + 1;
+				else hi = mid;
+			}
+			return lo;
+		}
+
+		//index of last block with first x not above value, -1 if none
+		private int lastBlockStartingUpTo(double value) {
+			int lo = 0, hi = blockCount;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (blocks[mid].xFirst <= value) lo = mid + 1;
+				else hi = mid;
+			}
+			return lo - 1;
+		}
+	}
+
+	/**
+	 * encoded values with summary, immutable
+	 */
+	private static class Block {
+
+		private static final int XOR_PREVIOUS = 0, XOR_EXTRAPOLATED = 1, DECIMAL_DELTA = 2, DECIMAL_DELTA2 = 3;
+		private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9};
+		private static final double MAX_EXACT = 1L << 53;
+
+		final long[] bits;
+		final int count;
+		final double xFirst, xLast, yFirst, yLast, yMin, yMax;
+
+		private Block(long[] bits, int count, double[] x, double[] y) {
+			this.bits = bits;
+			this.count = count;
+			this.xFirst = x[0];
+			this.xLast = x[count - 1];
+			this.yFirst = y[0];
+			this.yLast = y[count - 1];
+			double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < count; i++) {
+				min = y[i] < min ? y[i] : min;
+				max = y[i] > max ? y[i] : max;
+			}
+			this.yMin = min;
+			this.yMax = max;
+		}
+
+		long byteSize() {
+			return 80 + 8L * bits.length;
+		}
+
+		/**
+		 * x: first value raw, then delta of delta of the bit pattern
+		 * y: 2 bits for the mode taking the least space for the block, then depending on the mode
+		 * - xor with the previous value or with the value extrapolated from the two previous values, first value raw, 
+		 * then 0 for a match, 10 for meaningful bits within the previous window, 11 for a new window with 5 bits of leading zeros and 6 bits of length
+		 * - decimal values, 4 bits for the number of decimals, then the values as integers, first raw, then delta or delta of delta
+		 * differences are written with prefix 0, 10, 110, 1110 or 1111 for 0, 4, 12, 20 or 64 bits
+		 */
+		static Block encode(double[] x, double[] y, int count) {
+			BitOutput out = new BitOutput(count);
+			long[] bitsX = new long[count];
+			for (int i = 0; i < count; i++) bitsX[i] = Double.doubleToRawLongBits(x[i]);
+			writeDifferences(out, bitsX, count, true);
+
+			int decimals = decimals(y, count);
+			BitOutput best = null;
+			int bestMode = 0;
+			for (int mode = XOR_PREVIOUS; mode <= DECIMAL_DELTA2 && (mode < DECIMAL_DELTA || decimals >= 0); mode++) {
+				BitOutput candidate = encodeY(y, count, mode, decimals);
+				if (best == null || candidate.pos < best.pos) {
+					best = candidate;
+					bestMode = mode;
+				}
+			}
+			out.write(bestMode, 2);
+			out.append(best);
+			return new Block(out.toArray(), count, x, y);
+		}
+
+		private static BitOutput encodeY(double[] y, int count, int mode, int decimals) {
+			BitOutput out = new BitOutput(count);
+			if (mode == DECIMAL_DELTA || mode == DECIMAL_DELTA2) {
+				long[] values = new long[count];
+				for (int i = 0; i < count; i++) values[i] = Math.round(y[i] * POWERS_OF_TEN[decimals]);
+				out.write(decimals, 4);
+				writeDifferences(out, values, count, mode == DECIMAL_DELTA2);
+				return out;
+			}
+
+			int prevLeading = -1, prevTrailing = 0;
+			out.write(Double.doubleToRawLongBits(y[0]), 64);
+			for (int i = 1; i < count; i++) {
+				long xor = Double.doubleToRawLongBits(y[i]) ^ Double.doubleToRawLongBits(predict(y, i, mode == XOR_EXTRAPOLATED));
+				if (xor == 0) {
+					out.write(0b0, 1);
+
+				} else {
+					int leading = Math.min(31, Long.numberOfLeadingZeros(xor)), trailing = Long.numberOfTrailingZeros(xor);
+					if (prevLeading >= 0 && leading >= prevLeading && trailing >= prevTrailing) {
+						out.write(0b10, 2);
+						out.write(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+
+					} else {
+						int length = 64 - leading - trailing;
+						out.write(0b11, 2);
+						out.write(leading, 5);
+						out.write(length - 1, 6);
+						out.write(xor >>> trailing, length);
+						prevLeading = leading;
+						prevTrailing = trailing;
+					}
+				}
+			}
+			return out;
+		}
+
+		private static double predict(double[] y, int i, boolean isExtrapolated) {
+			return isExtrapolated && i >= 2 ? 2 * y[i - 1] - y[i - 2] : y[i - 1];
+		}
+
+		//smallest number of decimals that gives back every value exactly from an integer, -1 if none
+		private static int decimals(double[] y, int count) {
+			for (int k = 0; k < POWERS_OF_TEN.length; k++) {
+				boolean isExact = true;
+				for (int i = 0; i < count && isExact; i++) {
+					double scaled = y[i] * POWERS_OF_TEN[k];
+					isExact = Math.abs(scaled) < MAX_EXACT 
+							&& Double.doubleToRawLongBits(Math.round(scaled) / POWERS_OF_TEN[k]) == Double.doubleToRawLongBits(y[i]);
+				}
+				if (isExact) return k;
+			}
+			return -1;
+		}
+
+		private static void writeDifferences(BitOutput out, long[] values, int count, boolean isSecondOrder) {
+			long prevDelta = 0;
+			out.write(values[0], 64);
+			for (int i = 1; i < count; i++) {
+				long delta = values[i] - values[i - 1], diff = isSecondOrder ? delta - prevDelta : delta;
+				if (diff == 0) out.write(0b0, 1);
+				else if (diff >= -8 && diff < 8) {
+					out.write(0b10, 2);
+					out.write(diff, 4);
+				} else if (diff >= -2048 && diff < 2048) {
+					out.write(0b110, 3);
+					out.write(diff, 12);
+				} else if (diff >= -524288 && diff < 524288) {
+					out.write(0b1110, 4);
+					out.write(diff, 20);
+				} else {
+					out.write(0b1111, 4);
+					out.write(diff, 64);
+				}
+				prevDelta = delta;
+			}
+		}
+
+		private static long readDifference(BitInput in) {
+			if (in.read(1) == 0) return 0;
+			if (in.read(1) == 0) return in.readSigned(4);
+			if (in.read(1) == 0) return in.readSigned(12);
+			if (in.read(1) == 0) return in.readSigned(20);
+			return in.read(64);
+		}
+
+		void decode(double[] x, double[] y, int offset) {
+			BitInput in = new BitInput(bits);
+			long prevX = in.read(64), prevDelta = 0;
+			x[offset] = Double.longBitsToDouble(prevX);
+			for (int i = 1; i < count; i++) {
+				prevDelta += readDifference(in);
+				prevX += prevDelta;
+				x[offset + i] = Double.longBitsToDouble(prevX);
+			}
+
+			int mode = (int) in.read(2);
+			if (mode == DECIMAL_DELTA || mode == DECIMAL_DELTA2) {
+				double power = POWERS_OF_TEN[(int) in.read(4)];
+				long value = in.read(64), delta = 0;
+				y[offset] = value / power;
+				for (int i = 1; i < count; i++) {
+					if (mode == DECIMAL_DELTA2) delta += readDifference(in);
+					else delta = readDifference(in);
+					value += delta;
+					y[offset + i] = value / power;
+				}
+				return;
+			}
+
+			int leading = 0, trailing = 0;
+			y[offset] = Double.longBitsToDouble(in.read(64));
+			for (int i = 1; i < count; i++) {
+				long xor = 0;
+				if (in.read(1) == 1) {
+					if (in.read(1) == 1) {
+						leading = (int) in.read(5);
+						int length = (int) in.read(6) + 1;
+						trailing = 64 - leading - length;
+					}
+					xor = in.read(64 - leading - trailing) << trailing;
+				}
+				y[offset + i] = Double.longBitsToDouble(Double.doubleToRawLongBits(predict(y, offset + i, mode == XOR_EXTRAPOLATED && i >= 2)) ^ xor);
+			}
+		}
+
+		//first and last value with the extremes in between, keeps the vertical extent of the line within the block
+		void summarize(double[] x, double[] y, int offset) {
+			double mid = xFirst + (xLast - xFirst) / 2;
+			x[offset] = xFirst;
+			y[offset] = yFirst;
+			x[offset + 1] = mid;
+			y[offset + 1] = yMin;
+			x[offset + 2] = mid;
+			y[offset + 2] = yMax;
+			x[offset + 3] = xLast;
+			y[offset + 3] = yLast;
+		}
+	}
+
+	/**
+	 * bits written most significant first
+	 */
+	private static class BitOutput {
+
+		private long[] words;
+		int pos;
+
+		BitOutput(int count) {
+			words = new long[count];
+		}
+
+		void write(long value, int n) {
+			if (n < 64) value &= (1L << n) - 1;
+			int idx = pos >>> 6, free = 64 - (pos & 63);
+			if (idx + 1 >= words.length) words = Arrays.copyOf(words, words.length * 2 + 2);
+			if (n <= free) {
+				words[idx] |= value << (free - n);
+
+			} else {
+				words[idx] |= value >>> (n - free);
+				words[idx + 1] |= value << (64 - (n - free));
+			}
+			pos += n;
+		}
+
+		void append(BitOutput other) {
+			for (int i = 0; i < other.pos; i += 64) {
+				int n = Math.min(64, other.pos - i);
+				write(other.words[i >>> 6] >>> (64 - n), n);
+			}
+		}
+		
+		long[] toArray() {
+			return Arrays.copyOf(words, (pos + 63) >>> 6);
+		}
+	}
+
+	private static class BitInput {
+
+		private final long[] words;
+		private int pos;
+
+		BitInput(long[] words) {
+			this.words = words;
+		}
+
+		long read(int n) {
+			int idx = pos >>> 6, used = pos & 63, free = 64 - used;
+			long value;
+			if (n <= free) {
+				value = words[idx] << used >>> (64 - n);
+
+			} else {
+				int rest = n - free;
+				value = words[idx] << used >>> used << rest | words[idx + 1] >>> (64 - rest);
+			}
+			pos += n;
+			return value;
+		}
+
+		long readSigned(int n) {
+			return read(n) << (64 - n) >> (64 - n);
+		}
+	}
+}
@@ -0,0 +1,349 @@
+package plotter;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.event.Event;
+import javafx.event.EventType;
+import javafx.geometry.Point2D;
+import javafx.scene.Scene;
+import javafx.scene.chart.XYChart.Series;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Region;
+import javafx.stage.Stage;
+
+/**
+ * drives a DataPlotter under sustained load for minutes and writes a json report for comparing releases
+ * named parameters, defaults in brackets:
+ * --series [4] --points [100000] initial values per series, --rate [1000] values appended per second and series,
+ * --storage [compressed] or data, --zoom [true] and --pan [true] scripted input through the mouse handlers of the chart,
+ * --inertia [false] inertial panning after release,
+ * --export [30] seconds between saving table and bitmap, 0 for never, --warmup [5] and --duration [120] seconds,
+ * --report [soak-report.json], --headless [false] to run on Monocle, which must be on the class path
+ * pulse intervals are taken from an AnimationTimer, they exceed the frame period when layout and rendering take longer,
+ * drawn latency is the time from scripted input until all series are drawn for the new viewport
+ */
+public class SoakHarness extends Application {
+
+	private static final double PHASE_SECONDS = 2.0;			//zoom in, zoom out, pan
+	private static final double PAN_RADIUS = 80.0;
+
+	private final Samples pulseIntervals = new Samples(), drawnLatencies = new Samples(), tableExports = new Samples(), bitmapExports = new Samples();
+	private final Samples gcPauses = new Samples();
+	private final List <Double> heapSamples = new ArrayList <> ();
+	private final Map <String, String> options = new TreeMap <> ();
+	private final Random random = new Random(1);
+	private DataPlotter plotter;
+	private InteractiveLineChart chart;
+	private final List <Series <Number, Number>> seriesList = new ArrayList <> ();
+	private long appended;
+	private double nextX;
+
+	public static void main(String[] args) {
+		if (Arrays.asList(args).contains("--headless=true")) {
+			System.setProperty("glass.platform", "Monocle");
+			System.setProperty("monocle.platform", "Headless");
+			System.setProperty("prism.order", "sw");
+		}
+		launch(args);
+	}
+
+	@Override
+	public void start(Stage primaryStage) throws Exception {
+		options.put("series", "4");
+		options.put("points", "100000");
+		options.put("rate", "1000");
+		options.put("storage", "compressed");
+		options.put("zoom", "true");
+		options.put("pan", "true");
+		options.put("inertia", "false");
+		options.put("export", "30");
+		options.put("warmup", "5");
+		options.put("duration", "120");
+		options.put("report", "soak-report.json");
+		options.put("headless", "false");
+		options.putAll(getParameters().getNamed());
+
+		plotter = new DataPlotter();
+		chart = (InteractiveLineChart) plotter.getChart();
+		chart.setInertialPanning(bool("inertia"));
+		int points = integer("points");
+		for (int s = 0; s < integer("series"); s++) {
+			double[] x = new double[points], y = new double[points];
+			for (int i = 0; i < points; i++) {
+				x[i] = i * 0.01;
+				y[i] = signal(s, x[i]);
+			}
+			seriesList.add(plotter.builder()
+					.setX(x)
+					.setY(y)
+					.setSymbol(DataPlotter.DataSymbol.NONE)
+					.setCompressed(options.get("storage").equals("compressed"))
+					.setName("series " + s)
+					.plot());
+		}
+		nextX = points * 0.01;
+		primaryStage.setScene(new Scene(plotter.getPane(), 1200, 800));
+		primaryStage.show();
+		listenToGc();
+
+		new AnimationTimer() {
+
+			private long start, last, measureStart, nextExport, inputPulse;
+			private Map <Long, Long> allocatedAtStart;
+			private double appendDue;
+			private boolean isPanning;
+
+			@Override
+			public void handle(long now) {
+				if (start == 0) {
+					start = last = now;
+					measureStart = start + seconds("warmup");
+					nextExport = measureStart + seconds("export");
+				}
+				double t = (now - start) / 1e9;
+				boolean isMeasuring = now >= measureStart;
+				if (isMeasuring && allocatedAtStart == null) {
+					allocatedAtStart = allocatedBytes();
+					gcPauses.clear();
+				}
+				long elapsed = now - last;
+				if (isMeasuring) pulseIntervals.add(elapsed / 1e6);
+				last = now;
+
+				if (inputPulse != 0 && now > inputPulse && chart.isDrawn()) {
+					if (isMeasuring) drawnLatencies.add((now - inputPulse) / 1e6);
+					inputPulse = 0;
+				}
+
+				appendDue += integer("rate") * Math.min(elapsed, 100_000_000L) / 1e9;		//catch up at most 100 ms
+				append((int) appendDue);
+				appendDue -= (int) appendDue;
+
+				int phase = (int) (t / PHASE_SECONDS) % 3;
+				double phaseTime = t % PHASE_SECONDS;
+				if (phase < 2 && bool("zoom")) {
+					if (isPanning) mouse(MouseEvent.MOUSE_RELEASED, 0);
+					isPanning = false;
+					scroll(phase == 0 ? 40 : -40);
+					if (inputPulse == 0) inputPulse = now;
+
+				} else if (phase == 2 && bool("pan")) {
+					if (isPanning == false) mouse(MouseEvent.MOUSE_PRESSED, 0);
+					isPanning = true;
+					mouse(MouseEvent.MOUSE_DRAGGED, 2 * Math.PI * phaseTime / PHASE_SECONDS);
+					if (inputPulse == 0) inputPulse = now;
+				}
+
+				if (isMeasuring && seconds("export") > 0 && now >= nextExport) {
+					nextExport += seconds("export");
+					export();
+				}
+				if (isMeasuring && (now - measureStart) / 1e9 >= heapSamples.size()) {
+					MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+					heapSamples.add(memory.getHeapMemoryUsage().getUsed() / 1e6);
+				}
+				if (now - measureStart >= seconds("duration")) {
+					stop();
+					writeReport((now - measureStart) / 1e9, allocatedAtStart);
+					Platform.exit();
+				}
+			}
+		}.start();
+	}
+
+	private void append(int count) {
+		if (count <= 0) return;
+		double[] x = new double[count];
+		for (int i = 0; i < count; i++) x[i] = nextX + i * 0.01;
+		for (int s = 0; s < seriesList.size(); s++) {
+			double[] y = new double[count];
+			for (int i = 0; i < count; i++) y[i] = signal(s, x[i]);
+			plotter.append(seriesList.get(s), x, y);
+		}
+		nextX += count * 0.01;
+		appended += (long) count * seriesList.size();
+	}
+
+	//sensor like values with two decimals
+	private double signal(int s, double x) {
+		return Math.round(100 * (s + Math.sin(x * 0.01 * (s + 1)) + random.nextGaussian() * 0.02)) / 100.0;
+	}
+
+	private void scroll(double deltaY) {
+		Point2D pos = plotCenter(0, 0);
+		Event.fireEvent(chart.getPlotArea(), new ScrollEvent(ScrollEvent.SCROLL, pos.getX(), pos.getY(), pos.getX(), pos.getY(),
+				false, false, false, false, false, false, 0, deltaY, 0, deltaY, ScrollEvent.HorizontalTextScrollUnits.NONE, 0,
+				ScrollEvent.VerticalTextScrollUnits.NONE, 0, 0, null));
+	}
+
+	private void mouse(EventType <MouseEvent> type, double angle) {
+		Point2D pos = plotCenter(PAN_RADIUS * Math.cos(angle) - PAN_RADIUS, PAN_RADIUS * Math.sin(angle));
+		Event.fireEvent(chart.getPlotArea(), new MouseEvent(type, pos.getX(), pos.getY(), pos.getX(), pos.getY(), MouseButton.PRIMARY, 1,
+				false, false, false, false, type != MouseEvent.MOUSE_RELEASED, false, false, true, false, false, null));
+	}
+
+	private Point2D plotCenter(double dx, double dy) {
+		Region plotArea = chart.getPlotArea();
+		return plotArea.localToScene(plotArea.getWidth() / 2 + dx, plotArea.getHeight() / 2 + dy);
+	}
+
+	private void export() {
+		try {
+			File table = File.createTempFile("soak", ".csv"), bitmap = File.createTempFile("soak", ".png");
+			long t = System.nanoTime();
+			plotter.saveTable(table);
+			tableExports.add((System.nanoTime() - t) / 1e6);
+			t = System.nanoTime();
+			plotter.saveBitmap(bitmap);
+			bitmapExports.add((System.nanoTime() - t) / 1e6);
+			Files.deleteIfExists(table.toPath());
+			Files.deleteIfExists(bitmap.toPath());
+
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	//stop the world collections only, beans of concurrent cycles are left out
+	private void listenToGc() {
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			if (gc instanceof NotificationEmitter == false || gc.getName().contains("Concurrent") || gc.getName().contains("Cycles")) continue;
+			((NotificationEmitter) gc).addNotificationListener((notification, handback) -> {
+				if (notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+					GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+					gcPauses.add(info.getGcInfo().getDuration());
+				}
+			}, null, null);
+		}
+	}
+
+	private static Map <Long, Long> allocatedBytes() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long[] ids = threads.getAllThreadIds();
+		long[] bytes = threads.getThreadAllocatedBytes(ids);
+		Map <Long, Long> map = new HashMap <> ();
+		for (int i = 0; i < ids.length; i++) {
+			if (bytes[i] >= 0) map.put(ids[i], bytes[i]);
+		}
+		return map;
+	}
+
+	private void writeReport(double seconds, Map <Long, Long> allocatedAtStart) {
+		long allocated = 0;
+		for (Map.Entry <Long, Long> entry : allocatedBytes().entrySet()) {
+			allocated += entry.getValue() - allocatedAtStart.getOrDefault(entry.getKey(), 0L);
+		}
+		StringBuilder sb = new StringBuilder("{\n");
+		sb.append("  \"scenario\": {").append(options.entrySet().stream()
+				.map(e -> quote(e.getKey()) + ": " + quote(e.getValue())).collect(Collectors.joining(", "))).append("},\n");
+		sb.append("  \"java\": ").append(quote(System.getProperty("java.version"))).append(",\n");
+		sb.append("  \"javafx\": ").append(quote(System.getProperty("javafx.runtime.version"))).append(",\n");
+		sb.append("  \"os\": ").append(quote(System.getProperty("os.name") + " " + System.getProperty("os.arch"))).append(",\n");
+		sb.append("  \"processors\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+		sb.append("  \"seconds\": ").append(num(seconds)).append(",\n");
+		sb.append("  \"valuesAppended\": ").append(appended).append(",\n");
+		sb.append("  \"pulses\": ").append(pulseIntervals.size()).append(",\n");
+		sb.append("  \"pulseIntervalMs\": ").append(pulseIntervals.toJson()).append(",\n");
+		sb.append("  \"drawnLatencyMs\": ").append(drawnLatencies.toJson()).append(",\n");
+		sb.append("  \"saveTableMs\": ").append(tableExports.toJson()).append(",\n");
+		sb.append("  \"saveBitmapMs\": ").append(bitmapExports.toJson()).append(",\n");
+		sb.append("  \"gcPauseMs\": ").append(gcPauses.toJson()).append(",\n");
+		sb.append("  \"gcPauseTotalMs\": ").append(num(gcPauses.sum())).append(",\n");
+		sb.append("  \"allocationMBPerSecond\": ").append(num(allocated / 1e6 / seconds)).append(",\n");
+		sb.append("  \"heapUsedMB\": [").append(heapSamples.stream().map(SoakHarness::num).collect(Collectors.joining(", "))).append("],\n");
+		sb.append("  \"retainedBytesEstimate\": ").append(plotter.estimateRetainedBytes()).append("\n");
+		sb.append("}\n");
+		try {
+			Files.write(Paths.get(options.get("report")), sb.toString().getBytes(StandardCharsets.UTF_8));
+			System.out.print(sb);
+
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private int integer(String key) {
+		return Integer.parseInt(options.get(key));
+	}
+
+	private long seconds(String key) {
+		return (long) (Double.parseDouble(options.get(key)) * 1e9);
+	}
+
+	private boolean bool(String key) {
+		return Boolean.parseBoolean(options.get(key));
+	}
+
+	private static String quote(String str) {
+		return str == null ? "null" : "\"" + str.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+
+	private static String num(double value) {
+		return Double.isFinite(value) ? String.format(Locale.US, "%.3f", value) : "null";
+	}
+
+	/**
+	 * growing list of values with percentiles, values may be added from any thread
+	 */
+	private static class Samples {
+
+		private double[] values = new double[1024];
+		private int size;
+
+		synchronized void add(double value) {
+			if (size == values.length) values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		synchronized void clear() {
+			size = 0;
+		}
+
+		synchronized int size() {
+			return size;
+		}
+
+		synchronized double sum() {
+			double sum = 0;
+			for (int i = 0; i < size; i++) sum += values[i];
+			return sum;
+		}
+
+		synchronized String toJson() {
+			double[] sorted = Arrays.copyOf(values, size);
+			Arrays.sort(sorted);
+			return "{\"count\": " + size + ", \"p50\": " + num(percentile(sorted, 0.50)) + ", \"p90\": " + num(percentile(sorted, 0.90))
+				+ ", \"p99\": " + num(percentile(sorted, 0.99)) + ", \"max\": " + num(size > 0 ? sorted[size - 1] : Double.NaN) + "}";
+		}
+
+		private static double percentile(double[] sorted, double p) {
+			return sorted.length == 0 ? Double.NaN : sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package plotter;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.TilePane;
+import javafx.stage.Stage;
+
+/**
+ * time until a window with many plotters shows its first frame and until the series of all plotters are drawn
+ * run with the number of plotters as argument, default is 24, the window closes when done
+ */
+public class StartupBenchmark extends Application {
+
+	private static final int POINTS = 200;
+	private int frames;
+
+	@Override
+	public void start(Stage primaryStage) throws Exception {
+		int count = getParameters().getUnnamed().isEmpty() ? 24 : Integer.parseInt(getParameters().getUnnamed().get(0));
+		System.out.println(String.format("%d plotters, toolkit ready after %d ms of jvm uptime", count, ManagementFactory.getRuntimeMXBean().getUptime()));
+		long t0 = System.nanoTime();
+
+		List <DataPlotter> plotters = new ArrayList <> ();
+		for (int i = 0; i < count; i++) plotters.add(new DataPlotter());
+		long tCreated = System.nanoTime();
+
+		for (DataPlotter plotter : plotters) {
+			plotter.builder().setDiscreteFunction(0, 2*Math.PI, POINTS, x -> Math.sin(x)).setName("sine").plot();
+			plotter.builder().setDiscreteFunction(0, 2*Math.PI, POINTS, x -> Math.cos(x)).setName("cosine").plot();
+		}
+		long tPlotted = System.nanoTime();
+
+		TilePane tiles = new TilePane();
+		tiles.setPrefColumns((int) Math.ceil(Math.sqrt(count)));
+		plotters.forEach(plotter -> tiles.getChildren().add(plotter.getPane()));
+		primaryStage.setScene(new Scene(new ScrollPane(tiles), 1200, 800));
+		primaryStage.show();
+		long tShown = System.nanoTime();
+
+		new AnimationTimer() {
+
+			@Override
+			public void handle(long now) {
+				frames++;
+				if (frames == 2) print("first frame", System.nanoTime() - t0);		//first pulse after showing has been rendered
+				boolean isDrawn = plotters.stream().allMatch(plotter -> ((InteractiveLineChart) plotter.getChart()).isDrawn());
+				if (isDrawn && frames >= 2) {
+					print("all series drawn", System.nanoTime() - t0);
+					System.out.println(String.format("%d pulses", frames));
+					stop();
+					Platform.exit();
+				}
+			}
+		}.start();
+		print("create plotters", tCreated - t0);
+		print("plot series", tPlotted - tCreated);
+		print("show window", tShown - tPlotted);
+	}
+
+	private static void print(String name, long nanos) {
+		System.out.println(String.format("%-25s %8.1f ms", name, nanos / 1e6));
+	}
+
+	public static void main(String[] args) {
+		launch(args);
+	}
+}
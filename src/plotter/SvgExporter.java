@@ -0,0 +1,250 @@
+package plotter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.scene.Node;
+import javafx.scene.chart.Axis.TickMark;
+import javafx.scene.chart.ValueAxis;
+import javafx.scene.chart.XYChart.Series;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Shape;
+import javafx.scene.text.Font;
+
+/**
+ * writes the chart as scalable vector graphics in the current layout, scaled to the target width
+ * series are written from the values of the series in chunks of fixed size, not from the scene graph,
+ * so memory does not depend on the number of points
+ * points closer than half a pixel of the target size to the previous point are dropped
+ */
+class SvgExporter {
+
+	private static final int CHUNK = 8192;
+	private static final double TOLERANCE = 0.5;		//pixel of target size
+	private static final int FLUSH_SIZE = 1 << 16;
+
+	private final InteractiveLineChart chart;
+	private final Writer writer;
+	private final double scale;
+	private final StringBuilder sb = new StringBuilder(FLUSH_SIZE + 256);
+	private final double[] px = new double[CHUNK], py = new double[CHUNK], ex = new double[4 * CHUNK], ey = new double[4 * CHUNK];
+	private double lastX, lastY, skippedX, skippedY;
+	private boolean isSkipped;
+
+	SvgExporter(InteractiveLineChart chart, Writer writer, double width) {
+		this.chart = chart;
+		this.writer = writer;
+		this.scale = width / chart.getWidth();
+	}
+
+	void write() throws IOException {
+		double w = chart.getWidth(), h = chart.getHeight();
+		Region plotArea = chart.getPlotArea();
+		Bounds plot = toChart(plotArea, plotArea.getLayoutBounds());
+
+		sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		sb.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(num(w * scale)).append("\" height=\"").append(num(h * scale))
+			.append("\" viewBox=\"0 0 ").append(num(w * scale)).append(' ').append(num(h * scale)).append("\">\n");
+		sb.append("<defs><clipPath id=\"plot\"><rect x=\"").append(num(plot.getMinX() * scale)).append("\" y=\"").append(num(plot.getMinY() * scale))
+			.append("\" width=\"").append(num(plot.getWidth() * scale)).append("\" height=\"").append(num(plot.getHeight() * scale)).append("\"/></clipPath></defs>\n");
+		sb.append("<rect width=\"100%\" height=\"100%\" fill=\"white\"/>\n");
+
+		//everything except series in units of the chart
+		sb.append("<g transform=\"scale(").append(num(scale)).append(")\" font-family=\"sans-serif\">\n");
+		sb.append("<rect x=\"").append(num(plot.getMinX())).append("\" y=\"").append(num(plot.getMinY())).append("\" width=\"").append(num(plot.getWidth()))
+			.append("\" height=\"").append(num(plot.getHeight())).append("\" fill=\"none\" stroke=\"#c0c0c0\"/>\n");
+		if (chart.getVerticalGridLinesVisible()) writeGrid(chart.getXAxis(), plot);
+		if (chart.isHorizontalGridLinesVisible()) writeGrid(chart.getYAxis(), plot);
+		writeAxis(chart.getXAxis());
+		writeAxis(chart.getYAxis());
+		if (chart.isLegendVisible() && chart.getLegendNode() instanceof Pane) writeLegend((Pane) chart.getLegendNode());
+		sb.append("</g>\n");
+
+		//series in pixel of target size
+		Viewport vp = new Viewport(chart.getXAxis(), chart.getYAxis());
+		sb.append("<g clip-path=\"url(#plot)\" fill=\"none\" stroke-linejoin=\"bevel\">\n");
+		for (Series <Number, Number> series : chart.getData()) {
+			Shape seriesShape = (Shape) series.getNode();
+			SeriesBuffer buffer = chart.getBuffer(series);
+			if (buffer.isDensity || seriesShape.isVisible() == false || seriesShape.getStroke() == null) continue;
+			writeSeries(buffer.within(vp.toValueX(0), vp.toValueX(vp.width), 1.0 / (scale * Math.abs(vp.xScale))), vp, plot, seriesShape);
+		}
+		sb.append("</g>\n</svg>\n");
+		flush(0);
+	}
+
+	private void writeSeries(SeriesBuffer buffer, Viewport vp, Bounds plot, Shape seriesShape) throws IOException {
+		sb.append("<polyline");
+		appendPaint("stroke", seriesShape.getStroke());
+		sb.append(" stroke-width=\"").append(num(seriesShape.getStrokeWidth() * scale)).append("\" points=\"");
+
+		double[] x = buffer.x, y = buffer.y;
+		int from = 0, to = buffer.size;
+		boolean isAscending = buffer.isAscending && vp.xScale > 0;
+		if (isAscending) {					//only points within visible range of x
+			from = Math.max(0, Kernels.search(x, to, vp.xLo) - 1);
+			to = Math.min(to, Kernels.search(x, to, vp.xLo + vp.width / vp.xScale) + 1);
+		}
+		double offsetX = (plot.getMinX() + vp.xOffset) * scale, offsetY = (plot.getMinY() + vp.yOffset) * scale;
+		lastX = Double.NaN;
+		lastY = Double.NaN;
+		isSkipped = false;
+		for (int i = from; i < to; i += CHUNK) {
+			int count = Math.min(CHUNK, to - i);
+			System.arraycopy(x, i, px, 0, count);
+			System.arraycopy(y, i, py, 0, count);
+			Kernels.transform(px, px, count, vp.xLo, vp.xScale * scale, offsetX);
+			Kernels.transform(py, py, count, vp.yLo, vp.yScale * scale, offsetY);
+			if (isAscending) {
+				int n = Kernels.envelope(px, py, 0, count, 1.0, ex, ey);
+				for (int k = 0; k < n; k++) putPoint(ex[k], ey[k]);
+
+			} else {
+				for (int k = 0; k < count; k++) putPoint(px[k], py[k]);
+			}
+			flush(FLUSH_SIZE);
+		}
+		if (isSkipped) appendPoint(skippedX, skippedY);
+		sb.append("\"/>\n");
+	}
+
+	private void putPoint(double x, double y) {
+		if (Double.isNaN(x) || Double.isNaN(y)) return;
+		if (Math.abs(x - lastX) < TOLERANCE && Math.abs(y - lastY) < TOLERANCE) {
+			skippedX = x;
+			skippedY = y;
+			isSkipped = true;
+
+		} else {
+			appendPoint(x, y);
+		}
+	}
+
+	private void appendPoint(double x, double y) {
+		sb.append(num(x)).append(',').append(num(y)).append(' ');
+		lastX = x;
+		lastY = y;
+		isSkipped = false;
+	}
+
+	private void writeGrid(ValueAxis <Number> axis, Bounds plot) {
+		boolean isHorizontal = axis.getSide().isHorizontal();
+		sb.append("<g stroke=\"#e0e0e0\">\n");
+		for (TickMark <Number> tick : axis.getTickMarks()) {
+			double pos = tick.getPosition();
+			if (isHorizontal) line(plot.getMinX() + pos, plot.getMinY(), plot.getMinX() + pos, plot.getMaxY());
+			else line(plot.getMinX(), plot.getMinY() + pos, plot.getMaxX(), plot.getMinY() + pos);
+		}
+		sb.append("</g>\n");
+	}
+
+	private void writeAxis(ValueAxis <Number> axis) {
+		boolean isHorizontal = axis.getSide().isHorizontal();
+		Point2D origin = toChart(axis, 0, 0);
+		double len = axis.getTickLength(), gap = axis.getTickLabelGap(), x0 = origin.getX(), y0 = origin.getY();
+		Font font = axis.getTickLabelFont();
+		sb.append("<g stroke=\"black\">\n");
+		if (isHorizontal) line(x0, y0, x0 + axis.getWidth(), y0);
+		else line(x0 + axis.getWidth(), y0, x0 + axis.getWidth(), y0 + axis.getHeight());
+		for (TickMark <Number> tick : axis.getTickMarks()) {
+			double pos = tick.getPosition();
+			if (isHorizontal) line(x0 + pos, y0, x0 + pos, y0 + len);
+			else line(x0 + axis.getWidth() - len, y0 + pos, x0 + axis.getWidth(), y0 + pos);
+		}
+		sb.append("</g>\n");
+
+		sb.append("<g font-size=\"").append(num(font.getSize())).append("\" text-anchor=\"").append(isHorizontal ? "middle" : "end").append('"');
+		appendPaint("fill", axis.getTickLabelFill());
+		sb.append(">\n");
+		for (TickMark <Number> tick : axis.getTickMarks()) {
+			if (tick.isTextVisible() == false || tick.getLabel() == null) continue;
+			double pos = tick.getPosition();
+			if (isHorizontal) text(x0 + pos, y0 + len + gap + font.getSize(), tick.getLabel());
+			else text(x0 + axis.getWidth() - len - gap, y0 + pos + font.getSize() * 0.35, tick.getLabel());
+		}
+		sb.append("</g>\n");
+	}
+
+	private void writeLegend(Pane legend) {
+		for (Node child : legend.getChildren()) {
+			if (child instanceof Label == false) continue;
+			Label item = (Label) child;
+			Bounds bounds = toChart(item, item.getLayoutBounds());
+			double yMid = (bounds.getMinY() + bounds.getMaxY()) / 2, x = bounds.getMinX();
+			if (item.getGraphic() instanceof Shape) {
+				Shape graphic = (Shape) item.getGraphic();
+				Bounds gb = toChart(graphic, graphic.getLayoutBounds());
+				sb.append("<line x1=\"").append(num(gb.getMinX())).append("\" y1=\"").append(num(yMid))
+					.append("\" x2=\"").append(num(gb.getMaxX())).append("\" y2=\"").append(num(yMid)).append('"');
+				appendPaint("stroke", graphic.getStroke());
+				sb.append(" stroke-width=\"").append(num(graphic.getStrokeWidth())).append("\"/>\n");
+				x = gb.getMaxX() + item.getGraphicTextGap();
+			}
+			sb.append("<text font-size=\"").append(num(item.getFont().getSize())).append('"');
+			sb.append(" x=\"").append(num(x)).append("\" y=\"").append(num(yMid + item.getFont().getSize() * 0.35)).append("\">");
+			escape(item.getText());
+			sb.append("</text>\n");
+		}
+	}
+
+	private void line(double x1, double y1, double x2, double y2) {
+		sb.append("<line x1=\"").append(num(x1)).append("\" y1=\"").append(num(y1))
+			.append("\" x2=\"").append(num(x2)).append("\" y2=\"").append(num(y2)).append("\"/>\n");
+	}
+
+	private void text(double x, double y, String str) {
+		sb.append("<text x=\"").append(num(x)).append("\" y=\"").append(num(y)).append("\">");
+		escape(str);
+		sb.append("</text>\n");
+	}
+
+	private void escape(String str) {
+		if (str == null) return;
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			if (c == '<') sb.append("&lt;");
+			else if (c == '>') sb.append("&gt;");
+			else if (c == '&') sb.append("&amp;");
+			else if (c == '"') sb.append("&quot;");
+			else sb.append(c);
+		}
+	}
+
+	private void appendPaint(String attribute, Paint paint) {
+		Color color = paint instanceof Color ? (Color) paint : Color.BLACK;
+		sb.append(' ').append(attribute).append("=\"").append(String.format(Locale.ROOT, "#%02x%02x%02x",
+				Math.round(color.getRed() * 255), Math.round(color.getGreen() * 255), Math.round(color.getBlue() * 255))).append('"');
+		if (color.getOpacity() < 1.0) sb.append(' ').append(attribute).append("-opacity=\"").append(num(color.getOpacity())).append('"');
+	}
+
+	//two decimals, independent of locale
+	private String num(double value) {
+		long r = Math.round(value * 100);
+		String sign = r < 0 ? "-" : "";
+		r = Math.abs(r);
+		long frac = r % 100;
+		return sign + (r / 100) + (frac == 0 ? "" : (frac < 10 ? ".0" : ".") + frac);
+	}
+
+	private Point2D toChart(Node node, double x, double y) {
+		return chart.sceneToLocal(node.localToScene(x, y));
+	}
+
+	private Bounds toChart(Node node, Bounds bounds) {
+		return chart.sceneToLocal(node.localToScene(bounds));
+	}
+
+	private void flush(int limit) throws IOException {
+		if (sb.length() >= limit) {
+			writer.append(sb);
+			sb.setLength(0);
+		}
+	}
+}
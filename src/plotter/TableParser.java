@@ -0,0 +1,306 @@
+package plotter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * reads tables in the format written by DataPlotter.saveTable, name;idx;x;y
+ * the file is memory mapped and split into chunks at line ends, chunks are parsed in parallel
+ * numbers are parsed directly from the mapped bytes without creating strings
+ */
+class TableParser {
+
+	private static final long MIN_CHUNK = 1 << 20, MAX_CHUNK = 1 << 28;
+	private static final double[] POWERS = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+	private static final long MAX_EXACT = 1L << 53;
+
+	private final byte delimiter, decimalSeparator, groupingSeparator;
+
+	TableParser(char delimiter, Locale locale) {
+		DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+		this.delimiter = (byte) delimiter;
+		this.decimalSeparator = ascii(symbols.getDecimalSeparator(), (byte) '.');
+		this.groupingSeparator = ascii(symbols.getGroupingSeparator(), (byte) '\n');
+	}
+
+	//separators outside of ascii span several bytes in utf-8, a single byte would match the wrong bytes, '\n' never occurs in a field
+	private static byte ascii(char c, byte none) {
+		return c < 0x80 ? (byte) c : none;
+	}
+
+	/**
+	 * parse the whole file
+	 * @param path
+	 * @param progress receives the fraction of bytes parsed, called from worker threads, may be null
+	 * @return values of x and y for each series name in order of first appearance
+	 * @throws RuntimeException when the content is malformed
+	 */
+	Map <String, double[][]> parse(Path path, DoubleConsumer progress) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long chunkSize = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, size / (4 * Runtime.getRuntime().availableProcessors())));
+			List <Long> bounds = new ArrayList <> ();
+			bounds.add(0L);
+			for (long pos = chunkSize; pos < size; pos += chunkSize) {
+				long lineEnd = nextLine(channel, Math.max(pos, bounds.get(bounds.size() - 1)), size);
+				if (lineEnd < size) bounds.add(lineEnd);
+			}
+			bounds.add(size);
+
+			AtomicLong bytesDone = new AtomicLong();
+			List <Chunk> chunks = IntStream.range(0, bounds.size() - 1).parallel().mapToObj(i -> {
+				long start = bounds.get(i), end = bounds.get(i + 1);
+				try {
+					Chunk chunk = new Chunk(channel.map(MapMode.READ_ONLY, start, end - start), start);
+					chunk.parse();
+					if (progress != null) progress.accept((double) bytesDone.addAndGet(end - start) / size);
+					return chunk;
+
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}).collect(Collectors.toList());
+
+			Map <String, double[][]> result = new LinkedHashMap <> ();
+			Map <String, Integer> counts = new LinkedHashMap <> ();
+			for (Chunk chunk : chunks) {
+				for (Column col : chunk.columns) counts.merge(col.name, col.size, Integer::sum);
+			}
+			counts.forEach((name, count) -> result.put(name, new double[][] {new double[count], new double[count]}));
+			Map <String, Integer> filled = new LinkedHashMap <> ();
+			for (Chunk chunk : chunks) {
+				for (Column col : chunk.columns) {
+					double[][] xy = result.get(col.name);
+					int pos = filled.getOrDefault(col.name, 0);
+					System.arraycopy(col.x, 0, xy[0], pos, col.size);
+					System.arraycopy(col.y, 0, xy[1], pos, col.size);
+					filled.put(col.name, pos + col.size);
+				}
+			}
+			return result;
+
+		} catch (RuntimeException e) {
+			if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+			throw e;
+		}
+	}
+
+	//position after the next line feed at or after pos
+	private long nextLine(FileChannel channel, long pos, long size) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(4096);
+		while (pos < size) {
+			buf.clear();
+			int n = channel.read(buf, pos);
+			if (n <= 0) break;
+			for (int i = 0; i < n; i++) {
+				if (buf.get(i) == '\n') return pos + i + 1;
+			}
+			pos += n;
+		}
+		return size;
+	}
+
+	/**
+	 * values of one series name within one chunk
+	 */
+	private static class Column {
+
+		final String name;
+		final byte[] nameBytes;
+		double[] x = new double[1024], y = new double[1024];
+		int size;
+
+		Column(String name, byte[] nameBytes) {
+			this.name = name;
+			this.nameBytes = nameBytes;
+		}
+
+		void add(double xVal, double yVal) {
+			if (size == x.length) {
+				x = Arrays.copyOf(x, size * 2);
+				y = Arrays.copyOf(y, size * 2);
+			}
+			x[size] = xVal;
+			y[size] = yVal;
+			size++;
+		}
+	}
+
+	private class Chunk {
+
+		final MappedByteBuffer bytes;
+		final long start;
+		final List <Column> columns = new ArrayList <> ();
+		int pos, lineNumber;
+		Column lastColumn;
+
+		Chunk(MappedByteBuffer bytes, long start) {
+			this.bytes = bytes;
+			this.start = start;
+		}
+
+		void parse() {
+			int limit = bytes.limit();
+			if (start == 0 && limit >= 4 && bytes.get(0) == 'n' && bytes.get(1) == 'a' && bytes.get(2) == 'm' && bytes.get(3) == 'e') {
+				skipLine(limit);		//header
+			}
+			while (pos < limit) {
+				lineNumber++;
+				int nameStart = pos;
+				while (pos < limit && bytes.get(pos) != delimiter && bytes.get(pos) != '\n') pos++;
+				if (pos == limit || bytes.get(pos) == '\n') {		//empty or incomplete line
+					if (isBlank(nameStart, pos)) {
+						pos++;
+						continue;
+					}
+					throw error("missing values");
+				}
+				Column col = column(nameStart, pos);
+				pos++;
+				skipField(limit);			//index
+				double x = parseNumber(limit);
+				double y = parseNumber(limit);
+				skipLine(limit);
+				col.add(x, y);
+			}
+		}
+
+		Column column(int from, int to) {
+			if (lastColumn != null && isName(lastColumn, from, to)) return lastColumn;
+			for (Column col : columns) {
+				if (isName(col, from, to)) return lastColumn = col;
+			}
+			byte[] nameBytes = new byte[to - from];
+			for (int i = from; i < to; i++) nameBytes[i - from] = bytes.get(i);
+			lastColumn = new Column(new String(nameBytes, StandardCharsets.UTF_8), nameBytes);
+			columns.add(lastColumn);
+			return lastColumn;
+		}
+
+		boolean isName(Column col, int from, int to) {
+			if (col.nameBytes.length != to - from) return false;
+			for (int i = from; i < to; i++) {
+				if (col.nameBytes[i - from] != bytes.get(i)) return false;
+			}
+			return true;
+		}
+
+		/**
+		 * parse number up to next delimiter or line end,
+		 * numbers of up to 15 significant digits with up to 22 decimals are converted exactly, others by Double.parseDouble
+		 */
+		double parseNumber(int limit) {
+			int fieldStart = pos;
+			boolean isNegative = false;
+			if (pos < limit && (bytes.get(pos) == '-' || bytes.get(pos) == '+')) isNegative = bytes.get(pos++) == '-';
+			long mantissa = 0;
+			int decimals = 0, exponent = 0;
+			boolean isFraction = false, isExact = true;
+			while (pos < limit) {
+				byte b = bytes.get(pos);
+				if (b >= '0' && b <= '9') {
+					if (mantissa < MAX_EXACT / 10) {
+						mantissa = mantissa * 10 + (b - '0');
+						if (isFraction) decimals++;
+
+					} else if (isFraction == false) {
+						exponent++;				//drop further integer digits, scale instead
+						isExact = false;
+
+					} else {
+						isExact &= b == '0';
+					}
+
+				} else if (b == decimalSeparator && isFraction == false) {
+					isFraction = true;
+
+				} else if (b == groupingSeparator && b != delimiter && isFraction == false) {
+					//ignore
+
+				} else if (b == 'e' || b == 'E') {
+					pos++;
+					boolean isExpNegative = false;
+					if (pos < limit && (bytes.get(pos) == '-' || bytes.get(pos) == '+')) isExpNegative = bytes.get(pos++) == '-';
+					int exp = 0;
+					while (pos < limit && bytes.get(pos) >= '0' && bytes.get(pos) <= '9') exp = exp * 10 + (bytes.get(pos++) - '0');
+					exponent += isExpNegative ? -exp : exp;
+					break;
+
+				} else {
+					break;
+				}
+				pos++;
+			}
+			int end = pos;
+			if (pos < limit && bytes.get(pos) == delimiter) pos++;
+			else if (pos < limit && bytes.get(pos) != '\n' && bytes.get(pos) != '\r') return fallback(fieldStart, limit);
+			if (end == fieldStart) throw error("missing number");
+
+			int scale = exponent - decimals;
+			double value;
+			if (isExact && scale == 0) value = mantissa;
+			else if (isExact && scale < 0 && scale >= -22) value = mantissa / POWERS[-scale];
+			else if (isExact && scale > 0 && scale <= 22) value = mantissa * POWERS[scale];
+			else return fallback(fieldStart, limit);
+			return isNegative ? -value : value;
+		}
+
+		//field with text like NaN, Infinity or more digits than can be handled exactly
+		double fallback(int start, int limit) {
+			pos = start;
+			StringBuilder sb = new StringBuilder();
+			while (pos < limit && bytes.get(pos) != delimiter && bytes.get(pos) != '\n' && bytes.get(pos) != '\r') {
+				byte b = bytes.get(pos++);
+				if (b == decimalSeparator) sb.append('.');
+				else if (b != groupingSeparator) sb.append((char) b);
+			}
+			if (pos < limit && bytes.get(pos) == delimiter) pos++;
+			String str = sb.toString().trim();
+			try {
+				return Double.parseDouble(str);
+
+			} catch (NumberFormatException e) {
+				throw error("invalid number '" + str + "'");
+			}
+		}
+
+		void skipField(int limit) {
+			while (pos < limit && bytes.get(pos) != delimiter && bytes.get(pos) != '\n') pos++;
+			if (pos < limit && bytes.get(pos) == delimiter) pos++;
+		}
+
+		void skipLine(int limit) {
+			while (pos < limit && bytes.get(pos) != '\n') pos++;
+			pos++;
+		}
+
+		boolean isBlank(int from, int to) {
+			for (int i = from; i < to; i++) {
+				if (bytes.get(i) != '\r' && bytes.get(i) != ' ') return false;
+			}
+			return true;
+		}
+
+		RuntimeException error(String msg) {
+			return new RuntimeException("error reading table, " + msg + " in line " + lineNumber + " of chunk starting at byte " + start);
+		}
+	}
+}
@@ -0,0 +1,268 @@
+package plotter;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
+import javafx.scene.chart.ValueAxis;
+import javafx.util.StringConverter;
+
+/**
+ * axis for points in time, values of the chart are offsets from a long epoch base in a time unit,
+ * so that timestamps keep their precision down to nanoseconds as long as the offsets stay below 2^53
+ * major ticks are placed at calendar boundaries of the time zone, labels are formatted once per step and tick and then cached
+ */
+public class TimeAxis extends ValueAxis <Number> {
+
+	private static final double TICK_GAP = 10.0;		//minimal gap between tick labels
+	private static final int LABEL_CACHE_SIZE = 512;	//labels kept per step
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+	private static final double MAX_NANOS = 9e18;
+	private static final Instant SAMPLE_TIME = Instant.parse("2000-12-28T20:58:58.888888888Z");	//wide digits for measuring labels
+	private final long epochBase, baseNanos, unitNanos;
+	private final ZoneId zone;
+	private final List <Step> steps = new ArrayList <> ();
+	private final DateTimeFormatter dateFormat;
+	private TreeMap <Number, String> majorTicksMap = new TreeMap <> ();
+	private boolean isMinorTicksSuppressed;
+
+	{
+		scaleProperty().addListener(inv -> Platform.runLater(() -> requestAxisLayout()));
+		tickLabelFontProperty().addListener(inv -> steps.forEach(step -> step.labelLength = -1));
+		tickLabelRotationProperty().addListener(inv -> steps.forEach(step -> step.labelLength = -1));
+	}
+
+	/**
+	 * time axis in the default time zone
+	 * @param epochBase point in time of value 0, in the given unit since 1970-01-01T00:00Z
+	 * @param unit unit of values, usually milliseconds or nanoseconds
+	 */
+	public TimeAxis(long epochBase, TimeUnit unit) {
+		this(epochBase, unit, ZoneId.systemDefault());
+	}
+
+	/**
+	 * @param epochBase point in time of value 0, in the given unit since 1970-01-01T00:00Z
+	 * @param unit unit of values, usually milliseconds or nanoseconds
+	 * @param zone time zone of calendar boundaries and labels
+	 */
+	public TimeAxis(long epochBase, TimeUnit unit, ZoneId zone) {
+		this.epochBase = epochBase;
+		this.baseNanos = unit.toNanos(epochBase);
+		this.unitNanos = unit.toNanos(1);
+		this.zone = zone;
+		dateFormat = DateTimeFormatter.ofPattern("d MMM").withZone(zone);
+		for (ChronoUnit chronoUnit : Arrays.asList(ChronoUnit.NANOS, ChronoUnit.MICROS, ChronoUnit.MILLIS)) {
+			String pattern = chronoUnit == ChronoUnit.NANOS ? "HH:mm:ss.SSSSSSSSS" : chronoUnit == ChronoUnit.MICROS ? "HH:mm:ss.SSSSSS" : "HH:mm:ss.SSS";
+			for (int count : new int[] {1, 2, 5, 10, 20, 50, 100, 200, 500}) steps.add(new Step(chronoUnit, count, pattern));
+		}
+		for (int count : new int[] {1, 2, 5, 10, 15, 30}) steps.add(new Step(ChronoUnit.SECONDS, count, "HH:mm:ss"));
+		for (int count : new int[] {1, 2, 5, 10, 15, 30}) steps.add(new Step(ChronoUnit.MINUTES, count, "HH:mm"));
+		for (int count : new int[] {1, 2, 3, 6, 12}) steps.add(new Step(ChronoUnit.HOURS, count, "HH:mm"));
+		for (int count : new int[] {1, 2}) steps.add(new Step(ChronoUnit.DAYS, count, "d MMM"));
+		steps.add(new Step(ChronoUnit.WEEKS, 1, "d MMM"));
+		for (int count : new int[] {1, 3, 6}) steps.add(new Step(ChronoUnit.MONTHS, count, "MMM yyyy"));
+		for (int count : new int[] {1, 2, 5, 10, 20, 50, 100, 200}) steps.add(new Step(ChronoUnit.YEARS, count, "yyyy"));
+	}
+
+	/**
+	 * value on this axis of a point in time
+	 * @param time in the unit of the axis since 1970-01-01T00:00Z
+	 */
+	public double toValue(long time) {
+		return time - epochBase;
+	}
+
+	/**
+	 * values on this axis of points in time, for handing them to the builder of a plotter
+	 * @param times in the unit of the axis since 1970-01-01T00:00Z
+	 */
+	public double[] toValues(long[] times) {
+		double[] values = new double[times.length];
+		for (int i = 0; i < times.length; i++) values[i] = toValue(times[i]);
+		return values;
+	}
+
+	/**
+	 * point in time of a value on this axis, in the unit of the axis since 1970-01-01T00:00Z
+	 */
+	public long toTime(double value) {
+		return epochBase + (long) Math.floor(value);
+	}
+
+	@Override
+	protected Object autoRange(double minValue, double maxValue, double length, double labelSize) {
+		double margin = (maxValue - minValue) * CustomNumberAxis.MARGIN;
+		double lo = minValue - margin, hi = maxValue + margin;
+		double scale = calculateNewScale(length, lo, hi);		//sets offset as well, see ValueAxis
+		return new double[] {lo, hi, scale, length};
+	}
+
+	@Override
+	protected void setRange(Object rangeObj, boolean animate) {
+		double[] rng = (double[]) rangeObj;
+		setLowerBound(rng[0]);
+		currentLowerBound.set(rng[0]); 				//see ValueAxis
+		setUpperBound(rng[1]);
+		setScale(rng[2]);
+	}
+
+	@Override
+	protected Object getRange() {
+		return new double[] {getLowerBound(), getUpperBound(), getScale()};
+	}
+
+	/**
+	 * the smallest step whose labels fit between its ticks, ticks from the calendar boundary below the range upwards
+	 */
+	@Override
+	protected List <Number> calculateTickValues(double length, Object rangeObj) {
+		double[] rng = (double[]) rangeObj;
+		double lo = rng[0], hi = rng[1], scale = Math.abs(rng[2]);
+		majorTicksMap.clear();
+		if ((hi > lo) == false || Math.abs(baseNanos + lo * unitNanos) > MAX_NANOS || Math.abs(baseNanos + hi * unitNanos) > MAX_NANOS || scale == 0) {
+			return new ArrayList <> ();
+		}
+		Step step = steps.get(steps.size() - 1);
+		for (Step s : steps) {
+			if ((double) s.nanos / unitNanos * scale >= labelLength(s) + TICK_GAP) {
+				step = s;
+				break;
+			}
+		}
+		long loNanos = baseNanos + (long) Math.floor(lo * unitNanos), hiNanos = baseNanos + (long) Math.ceil(hi * unitNanos);
+		for (long tick = step.floor(loNanos), next; tick < hiNanos && majorTicksMap.size() < length / 2; tick = next) {
+			majorTicksMap.put((tick - baseNanos) / (double) unitNanos, step.label(tick));
+			next = step.next(tick);
+			if (next <= tick) break;			//beyond the range of long nanoseconds
+		}
+		return new ArrayList <> (majorTicksMap.keySet());
+	}
+
+	@Override
+	protected List <Number> calculateMinorTickMarks() {
+		List <Number> minorTicks = new ArrayList <> ();
+		if (isMinorTicksSuppressed) return minorTicks;
+		Number last = null;
+		for (Number major : majorTicksMap.keySet()) {
+			if (last != null) {
+				double delta = (major.doubleValue() - last.doubleValue()) / getMinorTickCount();
+				for (int i = 1; i < getMinorTickCount(); i++) minorTicks.add(last.doubleValue() + delta * i);
+			}
+			last = major;
+		}
+		return minorTicks;
+	}
+
+	/**
+	 * leave out minor ticks for the time being, used while the chart is zoomed or panned
+	 * @param isSuppressed
+	 */
+	void setMinorTicksSuppressed(boolean isSuppressed) {
+		if (isMinorTicksSuppressed != isSuppressed) {
+			isMinorTicksSuppressed = isSuppressed;
+			requestAxisLayout();
+		}
+	}
+
+	@Override
+	protected String getTickMarkLabel(Number value) {
+		StringConverter <Number> formatter = getTickLabelFormatter();
+		if (formatter != null) return formatter.toString(value);
+		else return majorTicksMap.get(value);
+	}
+
+	//length along the axis of the widest label of a step, measured once
+	private double labelLength(Step step) {
+		if (step.labelLength < 0) {
+			List <String> samples = new ArrayList <> ();
+			samples.add(step.format.format(SAMPLE_TIME));
+			if (step.isDateAtMidnight) samples.add(dateFormat.format(SAMPLE_TIME));
+			step.labelLength = samples.stream()
+					.map(str -> measureTickMarkLabelSize(str, getTickLabelRotation()))
+					.mapToDouble(dim -> getSide().isHorizontal() ? dim.getWidth() : dim.getHeight())
+					.max().getAsDouble();
+		}
+		return step.labelLength;
+	}
+
+	private ZonedDateTime toZoned(long nanos) {
+		return Instant.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND), Math.floorMod(nanos, NANOS_PER_SECOND)).atZone(zone);
+	}
+
+	private static long toNanos(ZonedDateTime time) {
+		return time.toEpochSecond() * NANOS_PER_SECOND + time.getNano();
+	}
+
+	/**
+	 * distance of major ticks, up to minutes a fixed number of nanoseconds aligned to the local time,
+	 * from hours on calendar fields of the time zone
+	 */
+	private class Step {
+
+		final ChronoUnit unit;
+		final int count;
+		final long nanos;						//approximate for months and years
+		final boolean isFixed, isDateAtMidnight;
+		final DateTimeFormatter format;
+		final Map <Long, String> labels = new LinkedHashMap <Long, String> (16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry <Long, String> eldest) {
+				return size() > LABEL_CACHE_SIZE;
+			}
+		};
+		double labelLength = -1;
+
+		Step(ChronoUnit unit, int count, String pattern) {
+			this.unit = unit;
+			this.count = count;
+			this.nanos = unit.getDuration().toNanos() * count;
+			this.isFixed = unit.compareTo(ChronoUnit.HOURS) < 0;
+			this.isDateAtMidnight = unit.compareTo(ChronoUnit.DAYS) < 0 && nanos >= NANOS_PER_SECOND;
+			this.format = DateTimeFormatter.ofPattern(pattern).withZone(zone);
+		}
+
+		//first tick at or below the given time
+		long floor(long time) {
+			if (isFixed) {
+				long offset = zone.getRules().getOffset(toZoned(time).toInstant()).getTotalSeconds() * NANOS_PER_SECOND;
+				return Math.floorDiv(time + offset, nanos) * nanos - offset;
+			}
+			ZonedDateTime zoned = toZoned(time);
+			LocalDate date = zoned.toLocalDate();
+			switch (unit) {
+			case HOURS:
+				return toNanos(zoned.truncatedTo(ChronoUnit.HOURS).withHour(zoned.getHour() / count * count));
+			case DAYS:
+				return toNanos(date.minusDays(Math.floorMod(date.toEpochDay(), count)).atStartOfDay(zone));
+			case WEEKS:
+				return toNanos(date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay(zone));
+			case MONTHS:
+				return toNanos(date.withDayOfMonth(1).withMonth((date.getMonthValue() - 1) / count * count + 1).atStartOfDay(zone));
+			default:
+				return toNanos(LocalDate.of(Math.floorDiv(date.getYear(), count) * count, 1, 1).atStartOfDay(zone));
+			}
+		}
+
+		long next(long tick) {
+			return isFixed ? tick + nanos : toNanos(toZoned(tick).plus(count, unit));
+		}
+
+		//ticks at midnight show the date instead of the time
+		String label(long tick) {
+			return labels.computeIfAbsent(tick, t -> {
+				ZonedDateTime time = toZoned(t);
+				boolean isMidnight = isDateAtMidnight && time.toLocalTime().toNanoOfDay() == 0;
+				return (isMidnight ? dateFormat : format).format(time);
+			});
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package plotter;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * loops of {@link Kernels} written with the vector api, results are identical to the scalar loops
+ * only used when the module jdk.incubator.vector is present, run with --add-modules jdk.incubator.vector
+ */
+final class VectorKernels {
+
+	private static final VectorSpecies <Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	private VectorKernels() {}
+
+	static void transform(double[] src, double[] dst, int count, double lo, double scale, double offset) {
+		int i = 0;
+		for (int bound = SPECIES.loopBound(count); i < bound; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, src, i).sub(lo).mul(scale).add(offset).intoArray(dst, i);
+		}
+		for (; i < count; i++) dst[i] = offset + (src[i] - lo) * scale;
+	}
+
+	//comparisons with NaN are false, so NaN is never blended in
+	static double[] extent(double[] values, int count) {
+		DoubleVector min = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY), max = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+		int i = 0;
+		for (int bound = SPECIES.loopBound(count); i < bound; i += SPECIES.length()) {
+			DoubleVector v = DoubleVector.fromArray(SPECIES, values, i);
+			min = min.blend(v, v.compare(VectorOperators.LT, min));
+			max = max.blend(v, v.compare(VectorOperators.GT, max));
+		}
+		double mi = min.reduceLanes(VectorOperators.MIN), ma = max.reduceLanes(VectorOperators.MAX);
+		for (; i < count; i++) {
+			double v = values[i];
+			mi = v < mi ? v : mi;
+			ma = v > ma ? v : ma;
+		}
+		return new double[] {mi + 0.0, ma + 0.0};		//same sign of zero as the scalar loops
+	}
+
+	static double[] extentWithin(double[] x, double[] y, int count, double lo, double hi) {
+		DoubleVector min = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY), max = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+		int i = 0;
+		for (int bound = SPECIES.loopBound(count); i < bound; i += SPECIES.length()) {
+			DoubleVector xv = DoubleVector.fromArray(SPECIES, x, i), yv = DoubleVector.fromArray(SPECIES, y, i);
+			VectorMask <Double> isInside = xv.compare(VectorOperators.GE, lo).and(xv.compare(VectorOperators.LE, hi));
+			min = min.blend(yv, isInside.and(yv.compare(VectorOperators.LT, min)));
+			max = max.blend(yv, isInside.and(yv.compare(VectorOperators.GT, max)));
+		}
+		double mi = min.reduceLanes(VectorOperators.MIN), ma = max.reduceLanes(VectorOperators.MAX);
+		for (; i < count; i++) {
+			double xv = x[i], yv = y[i];
+			boolean isInside = xv >= lo && xv <= hi;
+			mi = isInside && yv < mi ? yv : mi;
+			ma = isInside && yv > ma ? yv : ma;
+		}
+		return new double[] {mi + 0.0, ma + 0.0};		//same sign of zero as the scalar loops
+	}
+}
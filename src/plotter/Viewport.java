@@ -0,0 +1,55 @@
+package plotter;
+
+import java.util.Arrays;
+
+import javafx.scene.chart.ValueAxis;
+
+/**
+ * immutable snapshot of the transform from data units to display position of both axes,
+ * safe to hand over to worker threads
+ */
+final class Viewport {
+
+	final double xLo, xScale, xOffset, yLo, yScale, yOffset, width, height;
+	
+	Viewport(ValueAxis <Number> xAxis, ValueAxis <Number> yAxis) {
+		xLo = xAxis.getLowerBound();
+		xScale = xAxis.getScale();
+		xOffset = xAxis.getDisplayPosition(xLo);
+		yLo = yAxis.getLowerBound();
+		yScale = yAxis.getScale();
+		yOffset = yAxis.getDisplayPosition(yLo);
+		width = xAxis.getWidth();
+		height = yAxis.getHeight();
+	}
+	
+	double toDisplayX(double x) {
+		return xOffset + (x - xLo) * xScale;
+	}
+	
+	double toDisplayY(double y) {
+		return yOffset + (y - yLo) * yScale;
+	}
+	
+	double toValueX(double displayX) {
+		return xLo + (displayX - xOffset) / xScale;
+	}
+	
+	boolean isEmpty() {
+		return width <= 0 || height <= 0 || Double.isFinite(xScale) == false || Double.isFinite(yScale) == false;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof Viewport == false) return false;
+		Viewport vp = (Viewport) obj;
+		return xLo == vp.xLo && xScale == vp.xScale && xOffset == vp.xOffset 
+				&& yLo == vp.yLo && yScale == vp.yScale && yOffset == vp.yOffset
+				&& width == vp.width && height == vp.height;
+	}
+	
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(new double[] {xLo, xScale, xOffset, yLo, yScale, yOffset, width, height});
+	}
+}